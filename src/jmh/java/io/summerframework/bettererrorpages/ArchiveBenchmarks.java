@@ -0,0 +1,88 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Throughput of archiving rest endpoint errors into a full archive, where each put evicts the eldest error, and of archiving them while the
+ * archive is swept, where each sweep expires the eldest error.</p>
+ *
+ * <p>Run with {@code mvn -Pbenchmarks -DskipTests test-compile exec:exec -Dbenchmarks=ArchiveBenchmarks}</p>
+ *
+ * Created on October, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchiveBenchmarks {
+
+	@Param({ "1000", "10000" })
+	public int archiveSize;
+
+	@Param({ "50", "500", "5000" })
+	public int frameCount;
+
+	/**
+	 * Repeats of an error are archived in the record of the first one
+	 */
+	@Param({ "false", "true" })
+	public boolean repeats;
+
+	private final AtomicLong ids = new AtomicLong();
+
+	/**
+	 * Advances by one with each put so that the errors expire in the order they are put, one per sweep once the archive is full
+	 */
+	private final AtomicLong clock = new AtomicLong();
+
+	private String trace;
+
+	private String fingerprint;
+
+	private ArchivedErrorPagesService boundedArchive;
+
+	private ArchivedErrorPagesService expiringArchive;
+
+	@Setup
+	public void setUp() {
+		trace = BenchmarkTraces.generate(frameCount);
+		fingerprint = repeats ? new TraceParser(BenchmarkTraces.PACKAGE_NAME, Utils.sourceCodeLoader()).getFingerprint(trace) : null;
+		boundedArchive = new ArchivedErrorPagesService(Long.MAX_VALUE, archiveSize, Long.MAX_VALUE);
+		expiringArchive = new ArchivedErrorPagesService(archiveSize, Integer.MAX_VALUE, Long.MAX_VALUE, null, clock::get);
+	}
+
+	@TearDown
+	public void tearDown() {
+		boundedArchive.close();
+		expiringArchive.close();
+	}
+
+	@Benchmark
+	public void put() {
+		boundedArchive.putErrorTrace(String.valueOf(ids.incrementAndGet()), fingerprint, BenchmarkTraces.errorAttributes(trace));
+	}
+
+	@Benchmark
+	public void putAndSweep() {
+		clock.incrementAndGet();
+		expiringArchive.putErrorTrace(String.valueOf(ids.incrementAndGet()), fingerprint, BenchmarkTraces.errorAttributes(trace));
+		expiringArchive.expireErrors();
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Heap retained by 10k archived errors of a few endpoints, when their attributes are kept as they are and when the archive keeps their traces
+ * as references to the lines of a shared {@link FrameDictionary}. Retained heap is reported as the {@code retainedBytes} counter, measured as the
+ * difference of the used heap after full collections.</p>
+ *
+ * <p>Run with {@code mvn -Pbenchmarks -DskipTests test-compile exec:exec -Dbenchmarks=ArchiveMemoryBenchmarks}</p>
+ *
+ * Created on October, 2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveMemoryBenchmarks {
+
+	private static final int ERROR_COUNT = 10_000;
+
+	/**
+	 * Like the errors of a few endpoints in an error storm
+	 */
+	private static final int ENDPOINT_COUNT = 5;
+
+	private static final int FRAMEWORK_FRAME_COUNT = 120;
+
+	/**
+	 * Reachable until the next invocation so that it is not collected before it is measured
+	 */
+	private Object archive;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class RetainedHeap {
+
+		public long retainedBytes;
+	}
+
+	@Setup(Level.Invocation)
+	public void setUp() {
+		archive = null;
+	}
+
+	@Benchmark
+	public Object plainAttributes(RetainedHeap retainedHeap) {
+		final long before = usedHeap();
+		final Map<String, Map<String, Object>> archive = new HashMap<>();
+		for (int i = 0; i < ERROR_COUNT; i++) {
+			archive.put(String.valueOf(i), errorAttributes(i));
+		}
+		return this.measure(archive, before, retainedHeap);
+	}
+
+	@Benchmark
+	public Object frameDictionary(RetainedHeap retainedHeap) {
+		final long before = usedHeap();
+		final ArchivedErrorPagesService archive = new ArchivedErrorPagesService(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+		for (int i = 0; i < ERROR_COUNT; i++) {
+			archive.putErrorTrace(String.valueOf(i), errorAttributes(i));
+		}
+		archive.close();
+		return this.measure(archive, before, retainedHeap);
+	}
+
+	private Object measure(Object archive, long before, RetainedHeap retainedHeap) {
+		this.archive = archive;
+		retainedHeap.retainedBytes = usedHeap() - before;
+		return archive;
+	}
+
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			try {
+				Thread.sleep(100);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Each error has its own message and a few frames of its own endpoint on top of the same framework frames
+	 */
+	private static Map<String, Object> errorAttributes(int i) {
+		final int endpoint = i % ENDPOINT_COUNT;
+		final StringBuilder trace = new StringBuilder(FRAMEWORK_FRAME_COUNT * 120);
+		trace.append("java.lang.IllegalStateException: Product ").append(i).append(" is not found\n");
+
+		for (int frame = 0; frame < 5; frame++) {
+			trace.append("\tat com.kodgemisi.demo.web.Endpoint").append(endpoint).append("Controller.handle").append(frame)
+				 .append("(Endpoint").append(endpoint).append("Controller.java:").append(40 + frame).append(")\n");
+		}
+
+		for (int frame = 0; frame < FRAMEWORK_FRAME_COUNT; frame++) {
+			trace.append("\tat org.springframework.web.servlet.FrameworkServlet.processRequest").append(frame)
+				 .append("(FrameworkServlet.java:").append(frame).append(") ~[spring-webmvc-5.2.0.M1.jar:5.2.0.M1]\n");
+		}
+
+		final Map<String, Object> errorAttributes = new LinkedHashMap<>();
+		errorAttributes.put("timestamp", new Date());
+		errorAttributes.put("status", 500);
+		errorAttributes.put("error", "Internal Server Error");
+		errorAttributes.put("message", "Product " + i + " is not found");
+		errorAttributes.put("trace", trace.append("\t... 55 more").toString());
+		errorAttributes.put("path", "/products/" + i);
+		return errorAttributes;
+	}
+}
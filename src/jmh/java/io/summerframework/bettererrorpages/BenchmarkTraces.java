@@ -0,0 +1,84 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Traces the benchmarks run on, either the fixtures under {@code src/test/resources/sample_traces} or generated ones of a given number of
+ * frames.</p>
+ *
+ * Created on October, 2026
+ */
+final class BenchmarkTraces {
+
+	static final String PACKAGE_NAME = "com.kodgemisi";
+
+	static final String SAMPLE_TRACE = "sample_traces/sampleTrace.txt";
+
+	static final String TRACE_WITH_HTML = "sample_traces/traceWithHtml.txt";
+
+	private BenchmarkTraces() {
+		throw new UnsupportedOperationException("Cannot be instantiated!");
+	}
+
+	/**
+	 * @param trace path of a fixture on the classpath or the number of frames of a generated trace
+	 */
+	static String of(String trace) {
+		if (trace.endsWith(".txt")) {
+			return Utils.readSampleFile(trace);
+		}
+		return generate(Integer.parseInt(trace));
+	}
+
+	/**
+	 * Mostly framework frames with an application frame in every 50 frames and a cause in every 125 frames like a real trace. Application frames
+	 * are of {@code DemoClass} so that their sources are found.
+	 */
+	static String generate(int frameCount) {
+		final StringBuilder trace = new StringBuilder(frameCount * 120);
+		trace.append("org.thymeleaf.exceptions.TemplateProcessingException: An error happened during template parsing ")
+			 .append("(template: \"class path resource [templates/products/list.html]\" - line 12, col 40)\n");
+
+		for (int i = 0; i < frameCount; i++) {
+			if (i % 50 == 0) {
+				trace.append("\tat com.kodgemisi.bettererrorpagesdemo.DemoClass.handle").append(i).append("(DemoClass.java:").append(i % 8 + 1)
+					 .append(") ~[classes/:na]\n");
+			}
+			else if (i % 125 == 0) {
+				trace.append("Caused by: java.lang.IllegalStateException: Demo error here.\n");
+			}
+			else {
+				trace.append("\tat org.springframework.web.servlet.FrameworkServlet.processRequest(FrameworkServlet.java:").append(i)
+					 .append(") ~[spring-webmvc-5.2.0.M1.jar:5.2.0.M1]\n");
+			}
+		}
+		return trace.append("\t... 55 more").toString();
+	}
+
+	/**
+	 * @return a new map each time as archiving adds its own attributes to the map
+	 */
+	static Map<String, Object> errorAttributes(String trace) {
+		final Map<String, Object> errorAttributes = new HashMap<>();
+		errorAttributes.put("timestamp", System.currentTimeMillis());
+		errorAttributes.put("status", 500);
+		errorAttributes.put("error", "Internal Server Error");
+		errorAttributes.put("message", "Demo error here.");
+		errorAttributes.put("path", "/products");
+		errorAttributes.put("trace", trace);
+		return errorAttributes;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Extracting the source snippet of an error context from a source file of this project, through the source file cache and by streaming the
+ * file like before the cache.</p>
+ *
+ * <p>Run with {@code mvn -Pbenchmarks -DskipTests test-compile exec:exec -Dbenchmarks=ErrorContextBenchmarks}</p>
+ *
+ * Created on October, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorContextBenchmarks {
+
+	private static final String SOURCE_FILE_NAME = "ArchivedErrorPagesService.java";
+
+	@Param({ "10", "300", "550" })
+	public int errorLineNumber;
+
+	private StackTraceElement element;
+
+	private Path sourceFilePath;
+
+	private final SourcePathResolver sourcePathResolver = new SourcePathResolver();
+
+	private final SourceFileCache sourceFileCache = new SourceFileCache(SourceFileCache.DEFAULT_MAX_BYTES);
+
+	@Setup
+	public void setUp() throws IOException {
+		element = new StackTraceElement(ArchivedErrorPagesService.class.getName(), "putErrorTrace", SOURCE_FILE_NAME, errorLineNumber);
+		sourceFilePath = sourcePathResolver.resolveClass(ArchivedErrorPagesService.class.getName(), SOURCE_FILE_NAME);
+	}
+
+	@Benchmark
+	public String loadSourceCode() {
+		final ErrorContext errorContext = ErrorContext.fromStackTraceElement(element);
+		errorContext.loadSourceCode(sourcePathResolver, sourceFileCache);
+		return errorContext.getSourceCode();
+	}
+
+	@Benchmark
+	public String streamSourceCode() throws IOException {
+		return SourceSnippetReader.read(sourceFilePath, Math.max(errorLineNumber - 6, 0), errorLineNumber + 5);
+	}
+}
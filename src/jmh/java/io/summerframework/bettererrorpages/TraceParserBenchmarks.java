@@ -0,0 +1,101 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Parsing traces into frames and error contexts and styling them, on the sample traces and on generated traces of 50, 500 and 5000
+ * frames.</p>
+ *
+ * <p>Run with {@code mvn -Pbenchmarks -DskipTests test-compile exec:exec -Dbenchmarks=TraceParserBenchmarks}</p>
+ *
+ * Created on October, 2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TraceParserBenchmarks {
+
+	@Param({ BenchmarkTraces.SAMPLE_TRACE, BenchmarkTraces.TRACE_WITH_HTML, "50", "500", "5000" })
+	public String trace;
+
+	private String traceContent;
+
+	private TraceParser traceParser;
+
+	private List<TraceFrame> frames;
+
+	private List<ErrorContext> errorContexts;
+
+	private Pattern legacyClassNamePattern;
+
+	@Setup
+	public void setUp() {
+		traceContent = BenchmarkTraces.of(trace);
+		traceParser = new TraceParser(BenchmarkTraces.PACKAGE_NAME, Utils.sourceCodeLoader());
+		frames = traceParser.tokenize(traceContent);
+		errorContexts = traceParser.getErrorContexts(frames);
+		legacyClassNamePattern = Utils.legacyClassNamePattern(BenchmarkTraces.PACKAGE_NAME);
+	}
+
+	@Benchmark
+	public List<TraceFrame> tokenize() {
+		return traceParser.tokenize(traceContent);
+	}
+
+	/**
+	 * Matched content of the application frames, which is what the regular expressions matched before the tokenizer
+	 */
+	@Benchmark
+	public void matchedContent(Blackhole blackhole) {
+		for (TraceFrame frame : traceParser.tokenize(traceContent)) {
+			if (frame.isApplicationFrame()) {
+				blackhole.consume(frame.getMatchedContent());
+			}
+		}
+	}
+
+	/**
+	 * Regular expression the tokenizer replaced, matching the same content as {@link #matchedContent(Blackhole)}
+	 */
+	@Benchmark
+	public void legacyMatchedContent(Blackhole blackhole) {
+		final Matcher matcher = legacyClassNamePattern.matcher(traceContent);
+		while (matcher.find()) {
+			blackhole.consume(matcher.group(0));
+		}
+	}
+
+	/**
+	 * Includes loading the sources of the contexts, which are served from the source file cache after the first invocation
+	 */
+	@Benchmark
+	public List<ErrorContext> getErrorContexts() {
+		return traceParser.getErrorContexts(traceContent);
+	}
+
+	@Benchmark
+	public String styledTrace() {
+		return BetterErrorPagesService.styledTrace(traceContent, frames, errorContexts);
+	}
+}
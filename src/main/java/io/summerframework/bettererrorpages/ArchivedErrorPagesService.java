@@ -12,57 +12,732 @@
 
 package io.summerframework.bettererrorpages;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 /**
+ * <p>Keeps the error attributes of REST errors so that their error pages can be viewed later.</p>
+ *
+ * <p>The archive is bounded by both the number of errors and their estimated size in bytes, the least recently accessed errors are evicted first.
+ * Errors expire when they are not accessed for the timeout.</p>
+ *
+ * <p>Errors are kept in a queue in the order of their expiry, so expiring them only touches the expired ones at the head of the queue. Accessing an error
+ * only extends its expiry time, the error is moved to the tail of the queue when it reaches the head, either by expiring or by evicting the errors.</p>
+ *
+ * <p>Traces of the errors kept on heap are stored as references to the lines of a shared {@link FrameDictionary}, as archived traces mostly consist of
+ * the same framework frames. The trace is rebuilt each time the error is accessed.</p>
+ *
+ * <p>Attributes of the errors are kept on heap unless a {@link MappedErrorLog} is given. Then they are appended to the log and only their locations in
+ * the log are kept on heap, so the errors of the previous runs are recovered on startup and their error pages survive restarts. The maximum size
+ * applies to the records in the log then. Extended expiry times of the accessed errors are not persisted, recovered errors expire after the timeout
+ * since they are archived.</p>
+ *
+ * <p>Repeats of an error, having the same fingerprint, are archived in the record of the first one instead of a record of their own. Their ids refer to
+ * that record which counts the repeats and keeps the details of the last few distinct requests. Only the ids of the last
+ * {@value #MAX_REPEAT_IDS} repeats of a record are kept. Fingerprints of the recovered errors are not known, their repeats are archived in new
+ * records.</p>
+ *
+ * <p>Instances of this class are thread-safe and don't lock on reads or writes, except appending to the log and counting the repeats of a record.</p>
+ *
  * Created on May, 2018
  *
  * @author destan
  */
+@Slf4j
 class ArchivedErrorPagesService {
 
+	static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+	private static final String TIMESTAMP_KEY = "betterErrorPagesTimestampMs";
+
+	private static final String TRACE_KEY = "trace";
+
+	private static final String ERROR_ID_KEY = "betterErrorPagesErrorId";
+
+	private static final String OCCURRENCES_KEY = "betterErrorPagesOccurrences";
+
+	private static final String LAST_SEEN_KEY = "betterErrorPagesLastSeen";
+
+	private static final String REQUESTS_KEY = "betterErrorPagesRequests";
+
+	static final int MAX_REPEAT_IDS = 100;
+
+	static final int MAX_REQUESTS = 10;
+
+	/**
+	 * Errors expire at most this late after their timeout
+	 */
+	private static final long MAX_EXPIRY_TICK_MS = 60_000;
+
+	/**
+	 * Rough size of an object header with a few fields, and of a map entry
+	 */
+	private static final long OBJECT_OVERHEAD = 32;
+
 	private final long timeout;
 
-	private final Map<String, Map<String, Object>> errorArchive;
+	private final int maxEntries;
 
-	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+	private final long maxBytes;
+
+	private final Map<String, ArchivedError> errorArchive = new ConcurrentHashMap<>();
+
+	/**
+	 * Ids of the repeats to the records they are archived in
+	 */
+	private final Map<String, ArchivedError> repeatIds = new ConcurrentHashMap<>();
+
+	private final Map<String, ArchivedError> fingerprints = new ConcurrentHashMap<>();
+
+	/**
+	 * Archived errors in the order of their expiry unless they are accessed, the head is the first one to be expired or evicted
+	 */
+	private final Queue<ArchivedError> expiryOrder = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong currentBytes = new AtomicLong();
+
+	private final FrameDictionary frameDictionary = new FrameDictionary();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private final LongAdder expirationCount = new LongAdder();
+
+	private final LongSupplier clock;
+
+	@Nullable
+	private final MappedErrorLog errorLog;
+
+	private final BetterErrorPagesMetrics metrics;
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "better-error-pages-archive-expiry");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	ArchivedErrorPagesService(long timeout) {
+		this(timeout, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+	}
+
+	ArchivedErrorPagesService(long timeout, int maxEntries, long maxBytes) {
+		this(timeout, maxEntries, maxBytes, null);
+	}
+
+	ArchivedErrorPagesService(long timeout, int maxEntries, long maxBytes, @Nullable MappedErrorLog errorLog) {
+		this(timeout, maxEntries, maxBytes, errorLog, BetterErrorPagesMetrics.NOOP);
+	}
+
+	ArchivedErrorPagesService(long timeout, int maxEntries, long maxBytes, @Nullable MappedErrorLog errorLog, BetterErrorPagesMetrics metrics) {
+		this(timeout, maxEntries, maxBytes, errorLog, metrics, System::currentTimeMillis);
+	}
+
+	ArchivedErrorPagesService(long timeout, int maxEntries, long maxBytes, @Nullable MappedErrorLog errorLog, LongSupplier clock) {
+		this(timeout, maxEntries, maxBytes, errorLog, BetterErrorPagesMetrics.NOOP, clock);
+	}
+
+	ArchivedErrorPagesService(long timeout, int maxEntries, long maxBytes, @Nullable MappedErrorLog errorLog, BetterErrorPagesMetrics metrics,
+			LongSupplier clock) {
 		this.timeout = timeout;
-		this.errorArchive = Collections.synchronizedMap(new HashMap<>());//TODO put a limit like in FIFO fixed size queues
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.errorLog = errorLog;
+		this.metrics = metrics;
+		this.clock = clock;
+
+		if (errorLog != null) {
+			this.recover(errorLog);
+		}
 
-		final Runnable clearJob = this::clearOldErrors;
-		scheduler.scheduleAtFixedRate(clearJob, this.timeout, this.timeout, TimeUnit.MILLISECONDS);
+		// Expiring is cheap as it only touches the expired errors, so it runs more often than the timeout for errors not to outlive it much
+		final long tick = Math.max(1, Math.min(this.timeout, MAX_EXPIRY_TICK_MS));
+		final Runnable expiryJob = this::expireErrors;
+		scheduler.scheduleAtFixedRate(expiryJob, tick, tick, TimeUnit.MILLISECONDS);
 	}
 
 	void putErrorTrace(String errorId, Map<String, Object> errorAttributes) {
+		this.putErrorTrace(errorId, null, errorAttributes);
+	}
+
+	/**
+	 * @param fingerprint same for the repeats of an error, see {@link TraceParser#getFingerprint(String)}
+	 */
+	void putErrorTrace(String errorId, @Nullable String fingerprint, Map<String, Object> errorAttributes) {
+		final ErrorTrace errorTrace = this.stamp(errorId, errorAttributes);
+		errorTrace.fingerprint = fingerprint;
+		this.putErrorTraces(Collections.singletonList(errorTrace));
+	}
+
+	/**
+	 * Marks the attributes as archived, which is cheap and done on the request thread so that the response has the id, while the error trace is
+	 * {@link #putErrorTraces(List) put} later by {@link ErrorArchiveWriter}
+	 */
+	ErrorTrace stamp(String errorId, Map<String, Object> errorAttributes) {
 		errorAttributes.put("archived", true);
-		errorAttributes.put("betterErrorPagesErrorId", errorId);
-		errorAttributes.put("betterErrorPagesTimestampMs", System.currentTimeMillis());
-		errorArchive.put(errorId, errorAttributes);
+		errorAttributes.put(ERROR_ID_KEY, errorId);
+		final long now = clock.getAsLong();
+		errorAttributes.put(TIMESTAMP_KEY, now);
+		return new ErrorTrace(errorId, errorAttributes, now);
+	}
+
+	/**
+	 * Errors are archived at their stamp times, eviction runs once after the whole batch so the archive may exceed its bounds by the batch meanwhile
+	 */
+	void putErrorTraces(List<ErrorTrace> errorTraces) {
+		final long start = System.nanoTime();
+		ArchivedError newest = null;
+
+		for (ErrorTrace errorTrace : errorTraces) {
+			final ArchivedError archivedError = this.archive(errorTrace);
+			newest = archivedError == null ? newest : archivedError;
+		}
+
+		if (newest != null) {
+			this.evictIfNecessary(newest);
+		}
+		metrics.recordTime(BetterErrorPagesMetrics.ARCHIVE_PUT, start);
+	}
+
+	/**
+	 * @return the new record, null if the error is a repeat archived in an existing record
+	 */
+	@Nullable
+	private ArchivedError archive(ErrorTrace errorTrace) {
+		final String errorId = errorTrace.errorId;
+		final String fingerprint = errorTrace.fingerprint;
+		final Map<String, Object> errorAttributes = errorTrace.attributes;
+		final long now = errorTrace.archivedAt;
+
+		final ErrorOccurrence occurrence = ErrorOccurrence.of(errorId, errorAttributes, now);
+
+		if (fingerprint != null) {
+			final ArchivedError first = fingerprints.get(fingerprint);
+
+			if (first != null && this.addRepeat(first, occurrence, now)) {
+				return null;
+			}
+		}
+
+		ArchivedError archivedError = null;
+		if (errorLog != null) {
+			try {
+				final MappedErrorLog.Location location = errorLog.append(errorId, now, errorAttributes);
+				archivedError = new ArchivedError(errorId, fingerprint, null, null, location, location.getLength(), now + timeout);
+			}
+			catch (IOException e) {
+				log.warn("Cannot write archived error {} to the disk, it is kept in memory", errorId, e);
+			}
+		}
+
+		if (archivedError == null) {
+			archivedError = this.createInMemory(errorId, fingerprint, errorAttributes, now + timeout);
+		}
+
+		archivedError.lastSeen = now;
+		archivedError.requests.add(occurrence);
+
+		this.add(archivedError);
+		if (fingerprint != null) {
+			fingerprints.put(fingerprint, archivedError);
+		}
+		return archivedError;
 	}
 
+	/**
+	 * A repeat extends the expiry time of the record like an access does
+	 *
+	 * @return false if the record is removed or expired, then the repeat is archived in a new record
+	 */
+	private boolean addRepeat(ArchivedError archivedError, ErrorOccurrence repeat, long now) {
+		synchronized (archivedError) {
+			if (archivedError.released || archivedError.expiresAt <= now) {
+				return false;
+			}
+
+			archivedError.occurrences++;
+			archivedError.lastSeen = now;
+			archivedError.expiresAt = now + timeout;
+
+			repeatIds.put(repeat.getErrorId(), archivedError);
+			archivedError.repeatIds.addLast(repeat.getErrorId());
+			if (archivedError.repeatIds.size() > MAX_REPEAT_IDS) {
+				repeatIds.remove(archivedError.repeatIds.removeFirst(), archivedError);
+			}
+
+			ErrorOccurrence occurrence = repeat;
+			for (Iterator<ErrorOccurrence> iterator = archivedError.requests.iterator(); iterator.hasNext(); ) {
+				final ErrorOccurrence request = iterator.next();
+				if (request.isSameRequest(repeat)) {
+					iterator.remove();
+					occurrence = request.repeatedBy(repeat);
+					break;
+				}
+			}
+
+			archivedError.requests.addLast(occurrence);
+			if (archivedError.requests.size() > MAX_REQUESTS) {
+				archivedError.requests.removeFirst();
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Attributes are copied as the given ones are also the response body which has the trace
+	 */
+	private ArchivedError createInMemory(String errorId, @Nullable String fingerprint, Map<String, Object> errorAttributes, long expiresAt) {
+		final Map<String, Object> attributes = new HashMap<>(errorAttributes);
+		final Object trace = attributes.remove(TRACE_KEY);
+
+		if (!(trace instanceof String)) {
+			if (trace != null) {
+				attributes.put(TRACE_KEY, trace);
+			}
+			return new ArchivedError(errorId, fingerprint, attributes, null, null, estimateSize(attributes), expiresAt);
+		}
+
+		final FrameDictionary.Frame[] traceFrames = frameDictionary.intern((String) trace);
+		final long size = estimateSize(attributes) + FrameDictionary.sizeOf(traceFrames);
+		return new ArchivedError(errorId, fingerprint, attributes, traceFrames, null, size, expiresAt);
+	}
+
+	private void add(ArchivedError archivedError) {
+		final ArchivedError previous = errorArchive.put(archivedError.id, archivedError);
+
+		if (previous != null) {
+			currentBytes.addAndGet(-previous.size);
+			this.release(previous);
+		}
+
+		expiryOrder.add(archivedError);
+		currentBytes.addAndGet(archivedError.size);
+	}
+
+	/**
+	 * Errors are recovered in the order they are archived, which is also the order of their expiry
+	 */
+	private void recover(MappedErrorLog errorLog) {
+		final long now = clock.getAsLong();
+
+		try {
+			errorLog.recover((id, archivedAt, location) -> {
+				if (archivedAt + timeout <= now) {
+					errorLog.release(location);
+				}
+				else {
+					final ArchivedError archivedError = new ArchivedError(id, null, null, null, location, location.getLength(), archivedAt + timeout);
+					archivedError.lastSeen = archivedAt;
+					this.add(archivedError);
+				}
+			});
+		}
+		catch (IOException e) {
+			log.warn("Cannot recover archived errors of the previous runs", e);
+		}
+
+		this.evictIfNecessary(null);
+		errorLog.deleteEmptySegments();
+		log.debug("Recovered {} archived errors of {} bytes", errorArchive.size(), currentBytes.get());
+	}
+
+	/**
+	 * Accessing an error extends its expiry time by the timeout. Attributes of a record having repeats have the given id, the number of the
+	 * occurrences, the last time it occurred and the details of the last distinct requests.
+	 */
 	Optional<Map<String, Object>> getErrorAttributesById(String id) {
-		return Optional.ofNullable(this.errorArchive.get(id));
+		final long start = System.nanoTime();
+		final Optional<Map<String, Object>> errorAttributes = this.findErrorAttributesById(id);
+		metrics.recordTime(BetterErrorPagesMetrics.ARCHIVE_GET, start, "found", String.valueOf(errorAttributes.isPresent()));
+		return errorAttributes;
 	}
 
-	private void clearOldErrors() {
-		final List<String> idsToBeRemoved = errorArchive.values().stream()
-				.filter(errorAttributes -> (System.currentTimeMillis() - ((Long)errorAttributes.get("betterErrorPagesTimestampMs"))) > timeout)
-				.map(errorAttributes -> errorAttributes.get("betterErrorPagesErrorId").toString())
-				.collect(Collectors.toList());
+	private Optional<Map<String, Object>> findErrorAttributesById(String id) {
+		ArchivedError archivedError = this.errorArchive.get(id);
+		if (archivedError == null) {
+			archivedError = this.repeatIds.get(id);
+		}
+		final long now = clock.getAsLong();
+
+		// Expired but not removed yet
+		if (archivedError == null || archivedError.expiresAt <= now) {
+			return Optional.empty();
+		}
 
-		// To keep synchronized behavior of the map we need to use only map's methods to modify map content
-		// That's why we don't use "map.entrySet().removeIf" here
-		idsToBeRemoved.forEach(errorArchive::remove);
+		archivedError.expiresAt = now + timeout;
+
+		final Map<String, Object> attributes;
+		if (archivedError.traceFrames != null) {
+			attributes = new HashMap<>(archivedError.attributes);
+			attributes.put(TRACE_KEY, FrameDictionary.rebuild(archivedError.traceFrames));
+		}
+		else if (archivedError.attributes != null) {
+			attributes = new HashMap<>(archivedError.attributes);
+		}
+		else {
+			try {
+				attributes = errorLog.read(archivedError.location);
+			}
+			catch (IOException e) {
+				log.warn("Cannot read archived error {} from the disk", id, e);
+				return Optional.empty();
+			}
+		}
+
+		synchronized (archivedError) {
+			attributes.put(ERROR_ID_KEY, id);
+			attributes.put(OCCURRENCES_KEY, archivedError.occurrences);
+			attributes.put(LAST_SEEN_KEY, new Date(archivedError.lastSeen));
+			attributes.put(REQUESTS_KEY, new ArrayList<>(archivedError.requests));
+		}
+		return Optional.of(attributes);
+	}
+
+	/**
+	 * @return attributes of an error which is stamped but not put yet, as if it is archived in a record of its own
+	 */
+	Map<String, Object> getErrorAttributes(ErrorTrace errorTrace) {
+		final Map<String, Object> attributes = new HashMap<>(errorTrace.attributes);
+		attributes.put(OCCURRENCES_KEY, 1L);
+		attributes.put(LAST_SEEN_KEY, new Date(errorTrace.archivedAt));
+		attributes.put(REQUESTS_KEY, Collections.singletonList(ErrorOccurrence.of(errorTrace.errorId, errorTrace.attributes, errorTrace.archivedAt)));
+		return attributes;
+	}
+
+	/**
+	 * @param newest is never evicted even if it is bigger than the maximum size by itself
+	 */
+	private void evictIfNecessary(@Nullable ArchivedError newest) {
+		if (errorArchive.size() <= maxEntries && this.getCurrentBytes() <= maxBytes) {
+			return;
+		}
+
+		final long start = System.nanoTime();
+		while (errorArchive.size() > maxEntries || this.getCurrentBytes() > maxBytes) {
+			final ArchivedError eldest = expiryOrder.peek();
+
+			if (eldest == null || eldest == newest) {
+				break;
+			}
+
+			// Concurrent puts and the expiry job may have polled the same one, only the one removing it from the queue moves or evicts it
+			if (!expiryOrder.remove(eldest)) {
+				continue;
+			}
+
+			if (this.requeueIfAccessed(eldest)) {
+				continue;
+			}
+
+			if (this.remove(eldest)) {
+				evictionCount.increment();
+
+				if (log.isDebugEnabled()) {
+					log.debug("Archived error {} is evicted, archive has {} errors of {} bytes", eldest.id, errorArchive.size(), this.getCurrentBytes());
+				}
+			}
+		}
+		metrics.recordTime(BetterErrorPagesMetrics.ARCHIVE_EVICT, start);
+	}
+
+	private boolean remove(ArchivedError archivedError) {
+		if (errorArchive.remove(archivedError.id, archivedError)) {
+			currentBytes.addAndGet(-archivedError.size);
+			this.release(archivedError);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Called for each error which is not in the archive anymore, releases it once even if it is called more
+	 */
+	private void release(ArchivedError archivedError) {
+		synchronized (archivedError) {
+			if (archivedError.released) {
+				return;
+			}
+			archivedError.released = true;
+
+			for (String repeatId : archivedError.repeatIds) {
+				repeatIds.remove(repeatId, archivedError);
+			}
+
+			if (archivedError.fingerprint != null) {
+				fingerprints.remove(archivedError.fingerprint, archivedError);
+			}
+
+			if (archivedError.traceFrames != null) {
+				frameDictionary.release(archivedError.traceFrames);
+			}
+
+			if (archivedError.location != null) {
+				errorLog.release(archivedError.location);
+			}
+		}
+	}
+
+	/**
+	 * Copies the live records of the sparse segments to the current segment so that the segments can be deleted. Checks all the errors but only
+	 * when there is a sparse segment, which is rare as errors expire mostly in the order they are archived.
+	 */
+	private void compactErrorLog() {
+		if (errorLog.hasSparseSegments()) {
+			for (ArchivedError archivedError : errorArchive.values()) {
+				final MappedErrorLog.Location location = archivedError.location;
+				if (location != null && errorLog.isInSparseSegment(location)) {
+					archivedError.relocate(errorLog);
+				}
+			}
+		}
+
+		errorLog.deleteEmptySegments();
+	}
+
+	/**
+	 * Called with an error removed from the head of the queue. An error accessed after being queued is moved to the tail along with its expiry time,
+	 * so that it is expired and evicted after the errors accessed before it.
+	 *
+	 * @return true if the error is queued again, false if it is not accessed or not in the archive anymore
+	 */
+	private boolean requeueIfAccessed(ArchivedError archivedError) {
+		final long expiresAt = archivedError.expiresAt;
+
+		if (expiresAt == archivedError.queuedExpiresAt || errorArchive.get(archivedError.id) != archivedError) {
+			return false;
+		}
+
+		archivedError.queuedExpiresAt = expiresAt;
+		expiryOrder.add(archivedError);
+		return true;
+	}
+
+	/**
+	 * Only called by the scheduler, and by tests
+	 */
+	void expireErrors() {
+		final long now = clock.getAsLong();
+		ArchivedError head;
+
+		while ((head = expiryOrder.peek()) != null && head.queuedExpiresAt <= now) {
+
+			// Evicted concurrently
+			if (!expiryOrder.remove(head)) {
+				continue;
+			}
+
+			if (head.expiresAt <= now) {
+				if (this.remove(head)) {
+					expirationCount.increment();
+				}
+			}
+			else {
+				this.requeueIfAccessed(head);
+			}
+		}
+
+		if (errorLog != null) {
+			this.compactErrorLog();
+		}
+	}
+
+	/**
+	 * Stops expiring errors and flushes the log, inferred as the destroy method of the bean so that restarts don't leak archives.
+	 */
+	public void close() {
+		scheduler.shutdownNow();
+
+		if (errorLog != null) {
+			errorLog.close();
+		}
+	}
+
+	/**
+	 * Estimates retained size of the attributes, mostly made of the trace and message strings
+	 */
+	static long estimateSize(Object value) {
+		if (value instanceof CharSequence) {
+			return OBJECT_OVERHEAD + 2L * ((CharSequence) value).length();
+		}
+
+		if (value instanceof Map) {
+			long size = OBJECT_OVERHEAD;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				size += OBJECT_OVERHEAD + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+			}
+			return size;
+		}
+
+		if (value instanceof Collection) {
+			long size = OBJECT_OVERHEAD;
+			for (Object element : (Collection<?>) value) {
+				size += estimateSize(element);
+			}
+			return size;
+		}
+
+		return OBJECT_OVERHEAD;
+	}
+
+	int getEntryCount() {
+		return errorArchive.size();
+	}
+
+	/**
+	 * @return estimated size of the errors including the lines of their traces in the dictionary
+	 */
+	long getCurrentBytes() {
+		return currentBytes.get() + frameDictionary.getBytes();
+	}
+
+	int getFrameCount() {
+		return frameDictionary.getFrameCount();
+	}
+
+	long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	long getExpirationCount() {
+		return expirationCount.sum();
 	}
 
 	@ViewTemplateApi
 	public long getTimeout() {
 		return timeout;
 	}
+
+	/**
+	 * An error stamped on the request thread, waiting to be put
+	 */
+	static final class ErrorTrace {
+
+		private final String errorId;
+
+		/**
+		 * Same map with the response body, only read after it is stamped
+		 */
+		private final Map<String, Object> attributes;
+
+		private final long archivedAt;
+
+		/**
+		 * Set by the thread putting the error, as fingerprinting parses the trace
+		 */
+		@Nullable
+		String fingerprint;
+
+		private ErrorTrace(String errorId, Map<String, Object> attributes, long archivedAt) {
+			this.errorId = errorId;
+			this.attributes = attributes;
+			this.archivedAt = archivedAt;
+		}
+
+		String getErrorId() {
+			return errorId;
+		}
+
+		@Nullable
+		Object getTrace() {
+			return attributes.get(TRACE_KEY);
+		}
+	}
+
+	private static final class ArchivedError {
+
+		private final String id;
+
+		@Nullable
+		private final String fingerprint;
+
+		/**
+		 * Null if the error is in the log, doesn't have the trace if {@link #traceFrames} is not null
+		 */
+		@Nullable
+		private final Map<String, Object> attributes;
+
+		@Nullable
+		private final FrameDictionary.Frame[] traceFrames;
+
+		/**
+		 * Null if the error is kept on heap, changes when the error is moved while compacting the log
+		 */
+		@Nullable
+		private volatile MappedErrorLog.Location location;
+
+		/**
+		 * Guarded by this
+		 */
+		private boolean released;
+
+		/**
+		 * Guarded by this
+		 */
+		private long occurrences = 1;
+
+		/**
+		 * Guarded by this
+		 */
+		private long lastSeen;
+
+		/**
+		 * Ids of the repeats of the error, guarded by this
+		 */
+		private final Deque<String> repeatIds = new ArrayDeque<>();
+
+		/**
+		 * Last distinct requests of the error and its repeats, guarded by this
+		 */
+		private final Deque<ErrorOccurrence> requests = new ArrayDeque<>();
+
+		private final long size;
+
+		/**
+		 * Extended on each access
+		 */
+		private volatile long expiresAt;
+
+		/**
+		 * Expiry time when the error is added to the tail of the queue, only updated by the thread which removed the error from the queue
+		 */
+		private volatile long queuedExpiresAt;
+
+		private ArchivedError(String id, @Nullable String fingerprint, @Nullable Map<String, Object> attributes,
+				@Nullable FrameDictionary.Frame[] traceFrames, @Nullable MappedErrorLog.Location location, long size, long expiresAt) {
+			this.id = id;
+			this.fingerprint = fingerprint;
+			this.attributes = attributes;
+			this.traceFrames = traceFrames;
+			this.location = location;
+			this.size = size;
+			this.expiresAt = expiresAt;
+			this.queuedExpiresAt = expiresAt;
+		}
+
+		private synchronized void relocate(MappedErrorLog errorLog) {
+			if (released) {
+				return;
+			}
+
+			try {
+				final MappedErrorLog.Location relocated = errorLog.copy(location);
+				errorLog.release(location);
+				location = relocated;
+			}
+			catch (IOException e) {
+				log.warn("Cannot compact archived error {}", id, e);
+			}
+		}
+	}
 }
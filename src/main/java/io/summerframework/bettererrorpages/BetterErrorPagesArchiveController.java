@@ -35,17 +35,19 @@ class BetterErrorPagesArchiveController {
 
 	private final ArchivedErrorPagesService archivedErrorPagesService;
 
-	protected BetterErrorPagesArchiveController(ArchivedErrorPagesService archivedErrorPagesService) {
+	private final ErrorArchiveWriter errorArchiveWriter;
+
+	protected BetterErrorPagesArchiveController(ArchivedErrorPagesService archivedErrorPagesService, ErrorArchiveWriter errorArchiveWriter) {
 		this.archivedErrorPagesService = archivedErrorPagesService;
+		this.errorArchiveWriter = errorArchiveWriter;
 	}
 
 	@GetMapping(value = "/{id}", produces = "text/html")
 	String errorHtml(HttpServletRequest request, HttpServletResponse response, @PathVariable("id") String id,
 			@Value("${server.error.path:${error.path:/error}}") String errorPath) {
 
-		final Map<String, Object> errorAttributes = archivedErrorPagesService.getErrorAttributesById(id).orElseThrow(ErrorArchiveNotFoundException::new);
-
-		errorAttributes.put("betterErrorPagesTimestampMs", Long.MAX_VALUE);// prevent removal of seen archives
+		// Viewing an archived error extends its lifetime, errors waiting to be archived are found too
+		final Map<String, Object> errorAttributes = errorArchiveWriter.getErrorAttributesById(id).orElseThrow(ErrorArchiveNotFoundException::new);
 
 		request.setAttribute(MODEL_KEY, errorAttributes);
 
@@ -0,0 +1,211 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Style sheet, scripts and the ACE editor of the error pages, bundled in the starter jar and kept in memory along with their gzip compressed
+ * variants. They are served under a path having the {@link #getVersion() version} of their contents, so browsers cache them for good and the
+ * error pages are only small HTML documents.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+class BetterErrorPagesAssets {
+
+	static final String LOCATION = "better-error-pages/assets/";
+
+	/**
+	 * Has the version of the {@code ace-builds} webjar on the classpath, which is a part of the location of its files
+	 */
+	static final String ACE_POM_PROPERTIES = "META-INF/maven/org.webjars.npm/ace-builds/pom.properties";
+
+	/**
+	 * Minified build of the {@code ace-builds} webjar which doesn't define {@code require}, so it doesn't conflict with the scripts of the
+	 * application. Formatted with the version of the webjar.
+	 */
+	static final String ACE_LOCATION = "META-INF/resources/webjars/ace-builds/%s/src-min-noconflict/";
+
+	static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList("better-error-pages.css", "better-error-pages.js"));
+
+	/**
+	 * The editor loads the theme and the modes from the directory of {@code ace.js}, so they are served along with the other assets
+	 */
+	//@formatter:off
+	static final List<String> ACE_NAMES = Collections.unmodifiableList(Arrays.asList(
+			"ace.js", "theme-eclipse.js", "mode-java.js", "mode-html.js"));
+	//@formatter:on
+
+	private static final int VERSION_LENGTH = 8;
+
+	private final Map<String, Asset> assets = new LinkedHashMap<>();
+
+	/**
+	 * Hash of the contents of the assets so that the path of the assets changes when any of them changes
+	 */
+	@Getter
+	private final String version;
+
+	BetterErrorPagesAssets() {
+		this(BetterErrorPagesAssets.class.getClassLoader());
+	}
+
+	BetterErrorPagesAssets(ClassLoader classLoader) {
+		final StringBuilder etags = new StringBuilder();
+
+		for (String name : NAMES) {
+			this.read(classLoader, LOCATION, name, etags);
+		}
+
+		final String aceLocation = aceLocation(classLoader);
+		if (aceLocation != null) {
+			for (String name : ACE_NAMES) {
+				this.read(classLoader, aceLocation, name, etags);
+			}
+		}
+
+		this.version = DigestUtils.md5DigestAsHex(etags.toString().getBytes()).substring(0, VERSION_LENGTH);
+	}
+
+	private void read(ClassLoader classLoader, String location, String name, StringBuilder etags) {
+		try (InputStream inputStream = classLoader.getResourceAsStream(location + name)) {
+
+			if (inputStream == null) {
+				log.warn("{} is not on the classpath, error pages are shown without it", location + name);
+				return;
+			}
+
+			final Asset asset = new Asset(name, readAll(inputStream));
+			assets.put(name, asset);
+			etags.append(asset.etag);
+		}
+		catch (IOException e) {
+			log.warn("Cannot read {}, error pages are shown without it", name, e);
+		}
+	}
+
+	/**
+	 * @return null if the webjar is not on the classpath
+	 */
+	@Nullable
+	private static String aceLocation(ClassLoader classLoader) {
+		try (InputStream inputStream = classLoader.getResourceAsStream(ACE_POM_PROPERTIES)) {
+
+			if (inputStream != null) {
+				final Properties properties = new Properties();
+				properties.load(inputStream);
+				final String version = properties.getProperty("version");
+
+				if (version != null) {
+					return String.format(ACE_LOCATION, version);
+				}
+			}
+		}
+		catch (IOException e) {
+			log.warn("Cannot read {}", ACE_POM_PROPERTIES, e);
+		}
+
+		log.warn("Version of the ace-builds webjar is not found in {}, error pages are shown without the ACE editor", ACE_POM_PROPERTIES);
+		return null;
+	}
+
+	/**
+	 * @return null if there is no such asset or the version is not the current one
+	 */
+	@Nullable
+	Asset get(String version, String name) {
+		return this.version.equals(version) ? assets.get(name) : null;
+	}
+
+	/**
+	 * @return path of the current version of the assets, relative to the context path
+	 */
+	String getPath(String errorPath) {
+		return errorPath + "/assets/" + version;
+	}
+
+	private static byte[] readAll(InputStream inputStream) throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64 * 1024);
+		final byte[] buffer = new byte[8192];
+		int read;
+
+		while ((read = inputStream.read(buffer)) >= 0) {
+			outputStream.write(buffer, 0, read);
+		}
+		return outputStream.toByteArray();
+	}
+
+	@Getter
+	static final class Asset {
+
+		private final String contentType;
+
+		private final byte[] content;
+
+		/**
+		 * Null if compressing doesn't make it smaller
+		 */
+		@Nullable
+		private final byte[] gzipped;
+
+		/**
+		 * Quoted hash of the content, the gzipped variant has its own {@link #getGzippedEtag() etag}
+		 */
+		private final String etag;
+
+		private Asset(String name, byte[] content) throws IOException {
+			this.contentType = name.endsWith(".css") ? "text/css;charset=UTF-8" : "application/javascript;charset=UTF-8";
+			this.content = content;
+			this.etag = '"' + DigestUtils.md5DigestAsHex(content) + '"';
+
+			final byte[] compressed = gzip(content);
+			this.gzipped = compressed.length < content.length ? compressed : null;
+		}
+
+		String getGzippedEtag() {
+			return etag.substring(0, etag.length() - 1) + "-gzip\"";
+		}
+
+		private static byte[] gzip(byte[] content) throws IOException {
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length / 3 + 64);
+
+			// Compressed once at startup so the best compression is worth it
+			try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream) {
+				{
+					def.setLevel(Deflater.BEST_COMPRESSION);
+				}
+			}) {
+				gzipOutputStream.write(content);
+			}
+			return outputStream.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.util.Collections;
+
+/**
+ * <p>Serves {@link BetterErrorPagesAssets} as immutable, their paths change with their contents. Browsers revalidating them anyway get
+ * {@code 304 Not Modified} by their etags.</p>
+ *
+ * Created on October, 2026
+ */
+@Controller
+@RequestMapping("${server.error.path:${error.path:/error}}/assets")
+class BetterErrorPagesAssetsController {
+
+	static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+	private static final String GZIP = "gzip";
+
+	private final BetterErrorPagesAssets betterErrorPagesAssets;
+
+	protected BetterErrorPagesAssetsController(BetterErrorPagesAssets betterErrorPagesAssets) {
+		this.betterErrorPagesAssets = betterErrorPagesAssets;
+	}
+
+	@GetMapping("/{version}/{name:.+}")
+	ResponseEntity<byte[]> asset(@PathVariable("version") String version, @PathVariable("name") String name,
+			@Nullable @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			@Nullable @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+		final BetterErrorPagesAssets.Asset asset = betterErrorPagesAssets.get(version, name);
+
+		if (asset == null) {
+			return ResponseEntity.notFound().build();
+		}
+
+		final boolean gzipped = asset.getGzipped() != null && acceptsGzip(acceptEncoding);
+		final String etag = gzipped ? asset.getGzippedEtag() : asset.getEtag();
+
+		final HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl(CACHE_CONTROL);
+		headers.setETag(etag);
+		headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT_ENCODING));
+
+		if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+			return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+		}
+
+		headers.set(HttpHeaders.CONTENT_TYPE, asset.getContentType());
+
+		if (gzipped) {
+			headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+		}
+
+		return new ResponseEntity<>(gzipped ? asset.getGzipped() : asset.getContent(), headers, HttpStatus.OK);
+	}
+
+	/**
+	 * @param acceptEncoding like {@code gzip, deflate, br} or {@code gzip;q=0} which refuses gzip
+	 */
+	static boolean acceptsGzip(@Nullable String acceptEncoding) {
+
+		if (acceptEncoding == null) {
+			return false;
+		}
+
+		for (String coding : acceptEncoding.split(",")) {
+			final String[] parts = coding.trim().split(";");
+
+			if (parts[0].trim().equalsIgnoreCase(GZIP) || parts[0].trim().equals("*")) {
+				return parts.length < 2 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+}
@@ -14,11 +14,13 @@ package io.summerframework.bettererrorpages;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.web.ErrorProperties;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
@@ -33,10 +35,14 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 
 import javax.servlet.Servlet;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Set;
 
@@ -61,6 +67,11 @@ class BetterErrorPagesAutoconfigurer {
 
 	private final BetterErrorPagesConfigurationProperties betterErrorPagesConfigurationProperties;
 
+	/**
+	 * Only available when there is a {@code MeterRegistry}, see {@link BetterErrorPagesMetricsAutoconfigurer}
+	 */
+	private final ObjectProvider<BetterErrorPagesMetrics> betterErrorPagesMetrics;
+
 	/**
 	 * <p>
 	 * If return type is {@link org.springframework.boot.web.servlet.error.ErrorController} and {@link BetterErrorPagesController}
@@ -69,30 +80,126 @@ class BetterErrorPagesAutoconfigurer {
 	 * resolves beanType as ErrorController which eventually results in not evaluating/assuming our class as a controller and not registering {@code /error} mapping.
 	 * </p>
 	 *
-	 * @param requestMappingHandlerMapping
 	 * @param errorAttributes autowired
-	 * @param archivedErrorPagesService
+	 * @param betterErrorPagesService
+	 * @param errorArchiveWriter
 	 * @param errorPath
 	 * @param requestMappingsHolder
+	 * @param errorIdGenerator
+	 * @param renderBulkhead
+	 * @param betterErrorPagesAssets
+	 * @param snippetTokens
 	 * @return a configured instance of BetterErrorPagesController
 	 */
 	@Bean
 	BetterErrorPagesController betterErrorPagesController(ErrorAttributes errorAttributes, BetterErrorPagesService betterErrorPagesService,
-			ArchivedErrorPagesService archivedErrorPagesService, @Value("${server.error.path:${error.path:/error}}") String errorPath,
-			RequestMappingsHolder requestMappingsHolder) {
+			ErrorArchiveWriter errorArchiveWriter, @Value("${server.error.path:${error.path:/error}}") String errorPath,
+			RequestMappingsHolder requestMappingsHolder, ErrorIdGenerator errorIdGenerator, RenderBulkhead renderBulkhead,
+			BetterErrorPagesAssets betterErrorPagesAssets, SnippetTokens snippetTokens) {
 
 		final ErrorProperties errorProperties = this.serverProperties.getError();
 		errorProperties.setIncludeStacktrace(ErrorProperties.IncludeStacktrace.ALWAYS);
 		errorProperties.setIncludeException(true);
 
-		return new BetterErrorPagesController(errorAttributes, errorProperties, errorViewResolvers, betterErrorPagesService,
-											  archivedErrorPagesService,
-											  requestMappingsHolder, errorPath);
+		return new BetterErrorPagesController(errorAttributes, errorProperties, errorViewResolvers, betterErrorPagesService, errorArchiveWriter,
+											  requestMappingsHolder, errorIdGenerator, renderBulkhead, betterErrorPagesAssets, snippetTokens, errorPath,
+											  betterErrorPagesConfigurationProperties.isStreamingRender());
+	}
+
+	@Bean
+	BetterErrorPagesAssets betterErrorPagesAssets() {
+		return new BetterErrorPagesAssets();
+	}
+
+	@Bean
+	BetterErrorPagesAssetsController betterErrorPagesAssetsController(BetterErrorPagesAssets betterErrorPagesAssets) {
+		return new BetterErrorPagesAssetsController(betterErrorPagesAssets);
+	}
+
+	@Bean
+	SnippetTokens snippetTokens() {
+		return new SnippetTokens();
+	}
+
+	@Bean
+	BetterErrorPagesSnippetController betterErrorPagesSnippetController(SnippetTokens snippetTokens, SourceCodeLoader sourceCodeLoader) {
+		return new BetterErrorPagesSnippetController(snippetTokens, sourceCodeLoader,
+													 betterErrorPagesConfigurationProperties.getSnippetMaxExpansionLines());
 	}
 
 	@Bean
 	ArchivedErrorPagesService archivedErrorPagesService() {
-		return new ArchivedErrorPagesService(betterErrorPagesConfigurationProperties.getArchiveTimeout());
+		MappedErrorLog errorLog = null;
+		final String archiveDirectory = betterErrorPagesConfigurationProperties.getArchiveDirectory();
+
+		if (StringUtils.hasText(archiveDirectory)) {
+			try {
+				errorLog = new MappedErrorLog(Paths.get(archiveDirectory));
+			}
+			catch (IOException e) {
+				log.warn("Cannot use {} to archive errors, they are archived in memory", archiveDirectory, e);
+			}
+		}
+
+		return new ArchivedErrorPagesService(betterErrorPagesConfigurationProperties.getArchiveTimeout(),
+											 betterErrorPagesConfigurationProperties.getArchiveMaxEntries(),
+											 betterErrorPagesConfigurationProperties.getArchiveMaxSize(),
+											 errorLog, this.metrics());
+	}
+
+	@Bean
+	RenderBulkhead renderBulkhead() {
+		return new RenderBulkhead(betterErrorPagesConfigurationProperties.getRenderMaxConcurrency(),
+								  betterErrorPagesConfigurationProperties.getRenderWaitTimeout());
+	}
+
+	/**
+	 * Releases the render permits of the error pages after they are rendered
+	 */
+	@Bean
+	WebMvcConfigurer renderBulkheadConfigurer(RenderBulkhead renderBulkhead) {
+		return new WebMvcConfigurer() {
+
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				registry.addInterceptor(renderBulkhead);
+			}
+		};
+	}
+
+	@Bean
+	ErrorArchiveWriter errorArchiveWriter(ArchivedErrorPagesService archivedErrorPagesService, BetterErrorPagesService betterErrorPagesService) {
+		return new ErrorArchiveWriter(archivedErrorPagesService, betterErrorPagesService::fingerprint,
+									  betterErrorPagesConfigurationProperties.getArchiveQueueCapacity());
+	}
+
+	@Bean
+	SourceFileCache sourceFileCache() {
+		return new SourceFileCache(betterErrorPagesConfigurationProperties.getSourceCacheSize(), this.metrics());
+	}
+
+	@Bean
+	SourceCodeLoader sourceCodeLoader(SourcePathResolver sourcePathResolver, SourceFileCache sourceFileCache) {
+		return new SourceCodeLoader(SourceCodeLoader.createExecutor(), sourcePathResolver, sourceFileCache,
+									betterErrorPagesConfigurationProperties.getSourceLoadTimeout(),
+									betterErrorPagesConfigurationProperties.getSnippetPrefetchCount());
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	ErrorIdGenerator errorIdGenerator() {
+		return new UlidErrorIdGenerator();
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	SourceRootLocator sourceRootLocator() {
+		return new ClasspathSourceRootLocator();
+	}
+
+	@Bean
+	SourcePathResolver sourcePathResolver(SourceRootLocator sourceRootLocator) {
+		return new SourcePathResolver(sourceRootLocator, this.metrics());
 	}
 
 	@Bean
@@ -101,12 +208,13 @@ class BetterErrorPagesAutoconfigurer {
 	}
 
 	@Bean
-	BetterErrorPagesArchiveController betterErrorPagesArchiveController(ArchivedErrorPagesService archivedErrorPagesService) {
-		return new BetterErrorPagesArchiveController(archivedErrorPagesService);
+	BetterErrorPagesArchiveController betterErrorPagesArchiveController(ArchivedErrorPagesService archivedErrorPagesService,
+			ErrorArchiveWriter errorArchiveWriter) {
+		return new BetterErrorPagesArchiveController(archivedErrorPagesService, errorArchiveWriter);
 	}
 
 	@Bean
-	BetterErrorPagesService thymeleafExceptionUtils() {
+	BetterErrorPagesService thymeleafExceptionUtils(SourceCodeLoader sourceCodeLoader) {
 
 		String packageName = betterErrorPagesConfigurationProperties.getPackageName();
 
@@ -129,7 +237,12 @@ class BetterErrorPagesAutoconfigurer {
 
 		log.debug("packageName is determined as {}", packageName);
 
-		return new BetterErrorPagesService(packageName);
+		return new BetterErrorPagesService(packageName, sourceCodeLoader, betterErrorPagesConfigurationProperties.getTraceAnalysisCacheSize(),
+										   this.metrics());
+	}
+
+	private BetterErrorPagesMetrics metrics() {
+		return betterErrorPagesMetrics.getIfAvailable(() -> BetterErrorPagesMetrics.NOOP);
 	}
 
 }
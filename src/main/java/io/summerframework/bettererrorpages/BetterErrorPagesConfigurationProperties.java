@@ -38,7 +38,69 @@ class BetterErrorPagesConfigurationProperties {
 	private String[] profiles = {"dev", "development"};
 
 	/**
-	 * Timeout for archived rest endpoint errors to be cleared if never accessed.
+	 * Timeout for archived rest endpoint errors to be cleared when not accessed, each access extends it.
 	 */
 	private long archiveTimeout = 900000;
+
+	/**
+	 * Maximum number of archived rest endpoint errors. Oldest errors are evicted first.
+	 */
+	private int archiveMaxEntries = ArchivedErrorPagesService.DEFAULT_MAX_ENTRIES;
+
+	/**
+	 * Maximum total size in bytes of archived rest endpoint errors, estimated from their traces and messages. Oldest errors are evicted first.
+	 */
+	private long archiveMaxSize = ArchivedErrorPagesService.DEFAULT_MAX_BYTES;
+
+	/**
+	 * Directory to archive rest endpoint errors in, so that they survive restarts. Errors are archived in memory if not set.
+	 */
+	private String archiveDirectory;
+
+	/**
+	 * Maximum number of rest endpoint errors waiting to be archived in the background, the oldest waiting one is dropped when it is full.
+	 */
+	private int archiveQueueCapacity = ErrorArchiveWriter.DEFAULT_QUEUE_CAPACITY;
+
+	/**
+	 * Maximum total size in bytes of the source files kept in memory for error pages. Least recently used files are evicted first.
+	 */
+	private long sourceCacheSize = SourceFileCache.DEFAULT_MAX_BYTES;
+
+	/**
+	 * Maximum number of traces whose error contexts are kept in memory, so that repeats of an error don't resolve their source files again. Least
+	 * recently used traces are evicted first.
+	 */
+	private int traceAnalysisCacheSize = TraceAnalysisCache.DEFAULT_MAX_ENTRIES;
+
+	/**
+	 * Timeout in milliseconds for loading the source snippets of an error page, snippets not loaded in time are shown as timed out.
+	 */
+	private long sourceLoadTimeout = SourceCodeLoader.DEFAULT_TIMEOUT;
+
+	/**
+	 * Number of error contexts whose source snippets are embedded into the error page, the others are fetched when they are shown. Negative embeds
+	 * all of them.
+	 */
+	private int snippetPrefetchCount = SourceCodeLoader.DEFAULT_PREFETCH_COUNT;
+
+	/**
+	 * Maximum number of lines fetched at once when a source snippet is expanded in an error page.
+	 */
+	private int snippetMaxExpansionLines = BetterErrorPagesSnippetController.DEFAULT_MAX_EXPANSION_LINES;
+
+	/**
+	 * Maximum number of error pages rendered at the same time, requests over it get a lightweight error page after the render wait timeout.
+	 */
+	private int renderMaxConcurrency = RenderBulkhead.DEFAULT_MAX_CONCURRENT_RENDERS;
+
+	/**
+	 * Timeout in milliseconds for an error page to wait for the others to be rendered before it is rendered as a lightweight one.
+	 */
+	private long renderWaitTimeout = RenderBulkhead.DEFAULT_WAIT_TIMEOUT;
+
+	/**
+	 * Whether error pages are streamed, their status and message are sent before the trace is analyzed and the source snippets are loaded.
+	 */
+	private boolean streamingRender;
 }
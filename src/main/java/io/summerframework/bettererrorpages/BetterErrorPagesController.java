@@ -22,6 +22,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.DispatcherType;
@@ -30,7 +31,6 @@ import javax.servlet.http.HttpServletResponse;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * Created on April, 2018
@@ -41,22 +41,47 @@ import java.util.UUID;
 @RequestMapping("${server.error.path:${error.path:/error}}")
 public class BetterErrorPagesController extends BasicErrorController {
 
+	private static final String DEGRADED_VIEW_NAME = "better-error-pages-degraded";
+
+	private final ErrorAttributes errorAttributes;
+
 	private final BetterErrorPagesService betterErrorPagesService;
 
-	private final ArchivedErrorPagesService archivedErrorPagesService;
+	private final ErrorArchiveWriter errorArchiveWriter;
 
 	private final RequestMappingsHolder requestMappingsHolder;
 
+	private final ErrorIdGenerator errorIdGenerator;
+
+	private final RenderBulkhead renderBulkhead;
+
+	private final BetterErrorPagesAssets betterErrorPagesAssets;
+
+	private final SnippetTokens snippetTokens;
+
 	private final String errorPath;
 
+	private final boolean streamingRender;
+
+	/**
+	 * @param streamingRender true to analyze the trace while the error page is rendered, after its status and message are sent, see {@link
+	 *                        StreamedTraceAnalysis}
+	 */
 	protected BetterErrorPagesController(ErrorAttributes errorAttributes, ErrorProperties errorProperties, List<ErrorViewResolver> errorViewResolvers,
-			BetterErrorPagesService betterErrorPagesService, ArchivedErrorPagesService archivedErrorPagesService,
-			RequestMappingsHolder requestMappingsHolder, String errorPath) {
+			BetterErrorPagesService betterErrorPagesService, ErrorArchiveWriter errorArchiveWriter,
+			RequestMappingsHolder requestMappingsHolder, ErrorIdGenerator errorIdGenerator, RenderBulkhead renderBulkhead,
+			BetterErrorPagesAssets betterErrorPagesAssets, SnippetTokens snippetTokens, String errorPath, boolean streamingRender) {
 		super(errorAttributes, errorProperties, errorViewResolvers);
+		this.errorAttributes = errorAttributes;
 		this.betterErrorPagesService = betterErrorPagesService;
-		this.archivedErrorPagesService = archivedErrorPagesService;
+		this.errorArchiveWriter = errorArchiveWriter;
 		this.requestMappingsHolder = requestMappingsHolder;
+		this.errorIdGenerator = errorIdGenerator;
+		this.renderBulkhead = renderBulkhead;
+		this.betterErrorPagesAssets = betterErrorPagesAssets;
+		this.snippetTokens = snippetTokens;
 		this.errorPath = errorPath;
+		this.streamingRender = streamingRender;
 	}
 
 	@Override
@@ -75,8 +100,12 @@ public class BetterErrorPagesController extends BasicErrorController {
 
 		final HttpStatus status = getStatus(request);
 		final Map<String, Object> errorAttributes = getErrorAttributes(request, isIncludeStackTrace(request, MediaType.TEXT_HTML));
+		Throwable error = null;
 
-		if (request.getDispatcherType() == DispatcherType.FORWARD) {
+		if (request.getDispatcherType() != DispatcherType.FORWARD) {
+			error = this.errorAttributes.getError(new ServletWebRequest(request));
+		}
+		else {
 			// Coming from BetterErrorPagesArchiveController
 			final Map<String, Object> archivedErrorAttributes = (Map<String, Object>) request.getAttribute(BetterErrorPagesArchiveController.MODEL_KEY);
 
@@ -85,13 +114,32 @@ public class BetterErrorPagesController extends BasicErrorController {
 			}
 		}
 
+		if (!renderBulkhead.tryAcquire(request)) {
+			// Only status, message and the raw trace so that an error storm doesn't saturate the request threads by rendering error pages
+			response.setStatus(status.value());
+			return new ModelAndView(DEGRADED_VIEW_NAME, errorAttributes);
+		}
+
 		final Map<String, Object> model = new HashMap<>(errorAttributes);
+		model.put("betterErrorPagesAssets", betterErrorPagesAssets.getPath(this.errorPath));
+		model.put("betterErrorPagesSnippets", this.errorPath + "/snippets");
+		model.put("betterErrorPagesSnippetTokens", snippetTokens);
 
 		if (model.containsKey("trace")) {
+			// Only the trace is available for archived errors, the others are built from the Throwable without parsing its trace.
 			final String trace = (String) model.get("trace");
-			// Caveat: `getListOfErrorContext` must be called before `styledTrace`. Call order is important. See javadoc of `styledTrace`.
-			model.put("errorContextList", betterErrorPagesService.getListOfErrorContext(trace));
-			model.put("styledTrace", betterErrorPagesService.styledTrace(trace));
+
+			if (streamingRender) {
+				final Throwable analyzedError = error;
+				final StreamedTraceAnalysis traceAnalysis = new StreamedTraceAnalysis(response, () -> betterErrorPagesService.analyze(trace, analyzedError));
+				model.put("errorContextList", traceAnalysis.getErrorContexts());
+				model.put("styledTrace", traceAnalysis.getStyledTrace());
+			}
+			else {
+				final TraceAnalysis traceAnalysis = betterErrorPagesService.analyze(trace, error);
+				model.put("errorContextList", traceAnalysis.getErrorContexts());
+				model.put("styledTrace", traceAnalysis.getStyledTrace());
+			}
 		}
 
 		if (status.equals(HttpStatus.NOT_FOUND)) {
@@ -110,8 +158,9 @@ public class BetterErrorPagesController extends BasicErrorController {
 		final ResponseEntity<Map<String, Object>> responseEntity = super.error(request);
 
 		if (responseEntity.hasBody() && responseEntity.getBody().containsKey("trace")) {
-			final String errorId = UUID.randomUUID().toString();
-			archivedErrorPagesService.putErrorTrace(errorId, responseEntity.getBody());
+			final String errorId = errorIdGenerator.generate();
+			// Archived in the background so that failing requests don't wait for it
+			errorArchiveWriter.archive(errorId, responseEntity.getBody());
 
 			//@formatter:off
 			return ResponseEntity
@@ -0,0 +1,75 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+/**
+ * <p>Recorder of the durations of the stages of building error pages and archiving errors.</p>
+ *
+ * <p>Records nothing, {@link MicrometerBetterErrorPagesMetrics} is used instead only when there is a {@code MeterRegistry} bean. So the classes
+ * of the stages don't depend on Micrometer, which is optional.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+class BetterErrorPagesMetrics {
+
+	static final String PREFIX = "better.error.pages.";
+
+	static final String TRACE_PARSE = "trace.parse";
+
+	static final String TRACE_STYLE = "trace.style";
+
+	/**
+	 * Counted with the {@value #CACHE_TAG} tag, see {@link TraceAnalysisCache}
+	 */
+	static final String TRACE_ANALYSIS = "trace.analysis";
+
+	static final String SOURCE_RESOLVE = "source.resolve";
+
+	static final String SOURCE_READ = "source.read";
+
+	static final String RENDER = "render";
+
+	static final String ARCHIVE_PUT = "archive.put";
+
+	static final String ARCHIVE_GET = "archive.get";
+
+	static final String ARCHIVE_EVICT = "archive.evict";
+
+	static final String TYPE_TAG = "type";
+
+	static final String CACHE_TAG = "cache";
+
+	static final String HIT = "hit";
+
+	static final String MISS = "miss";
+
+	/**
+	 * For the stages which are not wired to the metrics of the application, like in tests
+	 */
+	static final BetterErrorPagesMetrics NOOP = new BetterErrorPagesMetrics();
+
+	/**
+	 * @param startNanos {@link System#nanoTime()} at the start of the stage
+	 * @param tags       as key value pairs
+	 */
+	void recordTime(String stage, long startNanos, String... tags) {
+	}
+
+	/**
+	 * @param tags as key value pairs
+	 */
+	void count(String event, String... tags) {
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * <p>Records metrics of Better Error Pages to the {@link MeterRegistry} of the application, only when there is one.</p>
+ *
+ * Created on October, 2026
+ */
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean({ MeterRegistry.class, BetterErrorPagesService.class })
+@AutoConfigureAfter(value = BetterErrorPagesAutoconfigurer.class,
+					name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+class BetterErrorPagesMetricsAutoconfigurer {
+
+	/**
+	 * Replaces the metrics which record nothing, see {@link BetterErrorPagesAutoconfigurer}
+	 */
+	@Bean
+	MicrometerBetterErrorPagesMetrics betterErrorPagesMetrics(MeterRegistry meterRegistry) {
+		return new MicrometerBetterErrorPagesMetrics(meterRegistry);
+	}
+
+	/**
+	 * Gauged beans record to the metrics, so the gauges are bound after all of them are created
+	 */
+	@Bean
+	SmartInitializingSingleton betterErrorPagesGauges(MicrometerBetterErrorPagesMetrics metrics, ArchivedErrorPagesService archivedErrorPagesService,
+			ErrorArchiveWriter errorArchiveWriter, RenderBulkhead renderBulkhead, BetterErrorPagesService betterErrorPagesService,
+			SourceFileCache sourceFileCache) {
+
+		return () -> metrics.bindGauges(archivedErrorPagesService, errorArchiveWriter, renderBulkhead, betterErrorPagesService.getTraceAnalysisCache(),
+										sourceFileCache);
+	}
+
+	@Bean
+	WebMvcConfigurer errorPageRenderTimerConfigurer(MicrometerBetterErrorPagesMetrics metrics) {
+		return new WebMvcConfigurer() {
+
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				registry.addInterceptor(new ErrorPageRenderTimer(metrics));
+			}
+		};
+	}
+}
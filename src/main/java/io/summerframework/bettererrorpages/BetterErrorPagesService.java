@@ -14,18 +14,16 @@ package io.summerframework.bettererrorpages;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
-import org.springframework.web.context.request.RequestAttributes;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.lang.Nullable;
 import org.unbescape.html.HtmlEscape;
 
-import javax.servlet.http.HttpServletRequest;
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Instances of this class are thread-safe.
@@ -37,87 +35,134 @@ import java.util.stream.Collectors;
 @Slf4j
 class BetterErrorPagesService {
 
-	private static final String SPAN_START = "<span class=\"own-class\" source-id=\"SI\">";
+	private static final String SPAN_START_PREFIX = "<span class=\"own-class\" source-id=\"";
 
-	private static final String SPAN_END = "</span>";
+	private static final String SPAN_START_SUFFIX = "\">";
 
-	private static final String ERROR_CONTEXT_MAP_KEY = "ERROR_CONTEXT_MAP";
+	private static final String SPAN_END = "</span>";
 
 	private final TraceParser traceParser;
 
-	protected BetterErrorPagesService(final String packageName) {
-		this.traceParser = new TraceParser(packageName);
-	}
+	private final TraceAnalysisCache traceAnalysisCache;
 
-	private static HttpServletRequest getCurrentHttpRequest() {
-		final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
-		if (requestAttributes instanceof ServletRequestAttributes) {
-			return ((ServletRequestAttributes) requestAttributes).getRequest();
-		}
+	private final BetterErrorPagesMetrics metrics;
 
-		throw new IllegalStateException("Cannot find ServletRequestAttributes");
+	protected BetterErrorPagesService(final String packageName, final SourceCodeLoader sourceCodeLoader) {
+		this(packageName, sourceCodeLoader, TraceAnalysisCache.DEFAULT_MAX_ENTRIES, BetterErrorPagesMetrics.NOOP);
 	}
 
-	private String decorateTraceLineIfCorrespondingErrorContextExists(String line) {
-
-		final String sourceCodeId = getSourceCodeIdFromTraceLine(line);
-		final String escapedHtml5 = HtmlEscape.escapeHtml5(line);
-
-		if (sourceCodeId == null) {
-			return escapedHtml5;
-		}
+	/**
+	 * @param traceAnalysisCacheSize maximum number of traces whose error contexts are cached, see {@link TraceAnalysisCache}
+	 */
+	protected BetterErrorPagesService(final String packageName, final SourceCodeLoader sourceCodeLoader, final int traceAnalysisCacheSize,
+			final BetterErrorPagesMetrics metrics) {
+		this.traceParser = new TraceParser(packageName, sourceCodeLoader, metrics);
+		this.traceAnalysisCache = new TraceAnalysisCache(traceAnalysisCacheSize);
+		this.metrics = metrics;
+	}
 
-		return (SPAN_START.replace("SI", sourceCodeId) + escapedHtml5 + SPAN_END);
+	TraceAnalysisCache getTraceAnalysisCache() {
+		return traceAnalysisCache;
 	}
 
 	/**
-	 * @param line a single line from an exception trace
-	 * @return corresponding 'code-editor' id in HTML, null if there is no error context for this line.
+	 * @param trace of the error, decorated in the same pass which finds the error contexts when the error is not available
+	 * @param error preferred over parsing the trace for error contexts when available
 	 */
-	private String getSourceCodeIdFromTraceLine(String line) {
+	@NonNull
+	TraceAnalysis analyze(@Nullable String trace, @Nullable Throwable error) {
 
-		final String lineAsMapKey = traceParser.getMatchedContent(line);
+		if (trace == null || trace.trim().isEmpty()) {
+			log.warn(
+					"Trace is null, this is normal for 404 errors but if error is different and you think there should be a trace please make sure that you have server.error.include-stacktrace=always");
+			return new TraceAnalysis(Collections.emptyList(), trace);
+		}
 
-		if (lineAsMapKey == null) {
-			return null;
+		final List<TraceFrame> frames = traceParser.tokenize(trace);
+		final String cacheKey = TraceAnalysisCache.keyOf(frames);
+
+		List<ErrorContext> errorContexts = traceAnalysisCache.getErrorContexts(cacheKey);
+		String styledTrace = null;
+
+		if (errorContexts == null) {
+			metrics.count(BetterErrorPagesMetrics.TRACE_ANALYSIS, BetterErrorPagesMetrics.CACHE_TAG, BetterErrorPagesMetrics.MISS);
+			errorContexts = error != null ? traceParser.getErrorContexts(error) : traceParser.getErrorContexts(frames);
+		}
+		else {
+			metrics.count(BetterErrorPagesMetrics.TRACE_ANALYSIS, BetterErrorPagesMetrics.CACHE_TAG, BetterErrorPagesMetrics.HIT);
+			styledTrace = traceAnalysisCache.getStyledTrace(cacheKey, trace);
 		}
 
-		// This map is created in getListOfErrorContext
-		final Map<String, ErrorContext> errorContextMap = (Map<String, ErrorContext>) getCurrentHttpRequest().getAttribute(ERROR_CONTEXT_MAP_KEY);
-		return errorContextMap.get(lineAsMapKey).getId();
+		if (styledTrace == null) {
+			final long start = System.nanoTime();
+			styledTrace = styledTrace(trace, frames, errorContexts);
+			metrics.recordTime(BetterErrorPagesMetrics.TRACE_STYLE, start);
+		}
+
+		final TraceAnalysis traceAnalysis = new TraceAnalysis(errorContexts, styledTrace);
+		traceAnalysisCache.put(cacheKey, trace, traceAnalysis);
+		return traceAnalysis;
+	}
+
+	/**
+	 * @return same value for the repeats of an error, see {@link TraceParser#getFingerprint(String)}
+	 */
+	String fingerprint(String trace) {
+		return traceParser.getFingerprint(trace);
 	}
 
 	/**
-	 * This method must be called after {@link #getListOfErrorContext(String)}.
+	 * @return HTML escaped trace, lines having an error context are wrapped with a span having the error context's id
 	 */
-	String styledTrace(String trace) {
-		if (trace == null) {
-			return null;
+	static String styledTrace(String trace, List<TraceFrame> frames, List<ErrorContext> errorContexts) {
+
+		final Map<String, String> sourceCodeIds = new HashMap<>();
+		for (ErrorContext errorContext : errorContexts) {
+			sourceCodeIds.putIfAbsent(errorContext.getTraceLine(), errorContext.getId());
 		}
 
-		//@formatter:off
-		return String.join("\n", Arrays.stream(trace.split("\n"))
-												.map(this::decorateTraceLineIfCorrespondingErrorContextExists)
-												.toArray(String[]::new));
-		//@formatter:on
+		// Trailing empty lines are not a part of the styled trace
+		int lastLine = frames.size() - 1;
+		while (lastLine >= 0 && frames.get(lastLine).isEmpty()) {
+			lastLine--;
+		}
 
-	}
+		final char[] characters = trace.toCharArray();
 
-	@NonNull
-	List<ErrorContext> getListOfErrorContext(String trace) {
+		// Escaping mostly adds a few characters for quotes and angle brackets in messages, spans are added around the lines of the contexts
+		final int spanLength = SPAN_START_PREFIX.length() + SPAN_START_SUFFIX.length() + SPAN_END.length() + 64;
+		final StringWriter writer = new StringWriter(trace.length() + trace.length() / 8 + errorContexts.size() * spanLength);
 
-		if (trace == null || trace.trim().isEmpty()) {
-			log.warn(
-					"Trace is null, this is normal for 404 errors but if error is different and you think there should be a trace please make sure that you have server.error.include-stacktrace=always");
-			return Collections.emptyList();
-		}
+		try {
+			for (int i = 0; i <= lastLine; i++) {
+				final TraceFrame frame = frames.get(i);
+
+				if (i > 0) {
+					writer.write('\n');
+				}
 
-		final List<ErrorContext> errorContexts = traceParser.getErrorContexts(trace);
+				// A frame-like line in an exception message has no context when the contexts are built from the Throwable
+				final String sourceCodeId = frame.getMatchedContent() == null ? null : sourceCodeIds.get(frame.getMatchedContent());
 
-		final Map<String, ErrorContext> map = errorContexts.stream().collect(Collectors.toMap(ErrorContext::getTraceLine, Function.identity()));
-		getCurrentHttpRequest().setAttribute(ERROR_CONTEXT_MAP_KEY, map);
+				if (sourceCodeId != null) {
+					writer.write(SPAN_START_PREFIX);
+					writer.write(sourceCodeId);
+					writer.write(SPAN_START_SUFFIX);
+				}
+
+				HtmlEscape.escapeHtml5(characters, frame.getLineStart(), frame.getLineEnd() - frame.getLineStart(), writer);
+
+				if (sourceCodeId != null) {
+					writer.write(SPAN_END);
+				}
+			}
+		}
+		catch (IOException e) {
+			// StringWriter doesn't throw
+			throw new UncheckedIOException(e);
+		}
 
-		return errorContexts;
+		return writer.toString();
 	}
 
 }
@@ -0,0 +1,172 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Serves the source snippets of the error contexts which are not embedded into their error pages, by their {@link SnippetTokens tokens}.</p>
+ *
+ * <p>Snippets are expanded in the error pages by fetching more {@link #lines(String, int, int, String) lines} of their files. Lines are read from the
+ * {@link SourceFileCache cached} line index of the file, so any range is found without reading the file again. Ranges are capped to a number of
+ * lines so that a page cannot make the server read a whole big file at once.</p>
+ *
+ * <p>Snippets and lines are cached by browsers and revalidated by their etags on each fetch, so that a modified source file is shown as it is
+ * now.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+@Controller
+@RequestMapping("${server.error.path:${error.path:/error}}/snippets")
+class BetterErrorPagesSnippetController {
+
+	static final String CACHE_CONTROL = "private, no-cache";
+
+	static final int DEFAULT_MAX_EXPANSION_LINES = 200;
+
+	private final SnippetTokens snippetTokens;
+
+	private final SourceCodeLoader sourceCodeLoader;
+
+	private final int maxExpansionLines;
+
+	protected BetterErrorPagesSnippetController(SnippetTokens snippetTokens, SourceCodeLoader sourceCodeLoader, int maxExpansionLines) {
+		this.snippetTokens = snippetTokens;
+		this.sourceCodeLoader = sourceCodeLoader;
+		this.maxExpansionLines = maxExpansionLines;
+	}
+
+	@GetMapping(value = "/{token:.+}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	ResponseEntity<Map<String, Object>> snippet(@PathVariable("token") String token,
+			@Nullable @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+		final ErrorContext errorContext = snippetTokens.errorContextOf(token);
+
+		if (errorContext == null) {
+			return ResponseEntity.notFound().build();
+		}
+
+		sourceCodeLoader.load(Collections.singletonList(errorContext));
+
+		// Placeholders of the snippets which cannot be loaded now are not cached, the source may be found later
+		if (errorContext.getSourceCodePath() == null) {
+			final HttpHeaders headers = new HttpHeaders();
+			headers.setCacheControl("no-store");
+			return new ResponseEntity<>(toBody(errorContext), headers, HttpStatus.OK);
+		}
+
+		final String range = errorContext.getSourceCodePath() + '\n' + errorContext.getFirstLineNumber();
+		return revalidated(etagOf(range, errorContext.getSourceCode()), ifNoneMatch, toBody(errorContext));
+	}
+
+	/**
+	 * @param from one based number of the first line, lines out of the file are left out
+	 * @param to   one based number of the last line, inclusive
+	 * @return {@code 400 Bad Request} if the range is more than the maximum number of lines of an expansion
+	 */
+	@GetMapping(value = "/{token:.+}/lines", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	ResponseEntity<Map<String, Object>> lines(@PathVariable("token") String token, @RequestParam("from") int from, @RequestParam("to") int to,
+			@Nullable @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+		if (to < from || (long) to - from + 1 > maxExpansionLines) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		final ErrorContext errorContext = snippetTokens.errorContextOf(token);
+
+		if (errorContext == null) {
+			return ResponseEntity.notFound().build();
+		}
+
+		final int lineCount;
+		final String sourceCode;
+		final int firstLine = Math.max(from, 1);
+		int lastLine = to;
+
+		try {
+			lineCount = sourceCodeLoader.countLines(errorContext);
+
+			if (lineCount >= 0) {
+				lastLine = Math.min(lastLine, lineCount);
+			}
+			sourceCode = firstLine > lastLine ? "" : sourceCodeLoader.readLines(errorContext, firstLine, lastLine);
+		}
+		catch (IOException e) {
+			log.debug(e.getMessage(), e);
+			return ResponseEntity.notFound().build();
+		}
+
+		final Map<String, Object> body = new LinkedHashMap<>();
+		body.put("from", firstLine);
+		body.put("to", lastLine);
+		body.put("lineCount", lineCount < 0 ? null : lineCount);
+		body.put("sourceCode", sourceCode);
+
+		// The line count drives expanding the snippet further, so a file which grows or shrinks is not revalidated by the same lines
+		final String range = errorContext.getId() + '\n' + firstLine + '\n' + lastLine + '\n' + lineCount;
+		return revalidated(etagOf(range, sourceCode), ifNoneMatch, body);
+	}
+
+	private static ResponseEntity<Map<String, Object>> revalidated(String etag, @Nullable String ifNoneMatch, Map<String, Object> body) {
+		final HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl(CACHE_CONTROL);
+		headers.setETag(etag);
+
+		if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+			return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+		}
+
+		return new ResponseEntity<>(body, headers, HttpStatus.OK);
+	}
+
+	/**
+	 * @param range source and the lines of the response, everything in the body other than the source code
+	 */
+	private static String etagOf(String range, String sourceCode) {
+		final String content = range + '\n' + sourceCode;
+		return '"' + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + '"';
+	}
+
+	private static Map<String, Object> toBody(ErrorContext errorContext) {
+		final Map<String, Object> body = new LinkedHashMap<>();
+		body.put("id", errorContext.getId());
+		body.put("fileType", errorContext.getFileType());
+		body.put("sourceCodePath", errorContext.getSourceCodePath());
+		body.put("sourceCode", errorContext.getSourceCode());
+		body.put("firstLineNumber", errorContext.getFirstLineNumber());
+		body.put("errorLineNumber", errorContext.getErrorLineNumber());
+		return body;
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Default {@link SourceRootLocator} which indexes every source file of the projects found on the classpath.</p>
+ *
+ * <p>Project directories are found by walking up from the classpath entries until a build output directory like {@code target},
+ * {@code build} or {@code out} next to a {@code src} directory is found. Hence Maven, Gradle and IntelliJ outputs, multi-module builds and
+ * executable jars in the build output directory are all supported. Source roots are the language directories under {@code src}
+ * (i.e. {@code src/main/java}, {@code src/test/kotlin}) and the generated sources directories of Maven and Gradle.</p>
+ *
+ * <p>Index is built once in a background thread, {@link #locate(String, String)} returns null until it is ready.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+class ClasspathSourceRootLocator implements SourceRootLocator, InitializingBean {
+
+	private static final List<String> OUTPUT_DIRECTORY_NAMES = Arrays.asList("target", "build", "out");
+
+	private static final String SOURCE_DIRECTORY_NAME = "src";
+
+	private static final String RESOURCES_DIRECTORY_NAME = "resources";
+
+	/**
+	 * Classpath entries are at most this deep in the output directory, i.e. {@code build/classes/java/main}
+	 */
+	private static final int MAX_OUTPUT_DIRECTORY_DEPTH = 5;
+
+	private static final int MAX_INDEXED_FILES = 100_000;
+
+	private static final String JAR_URL_SEPARATOR = "!/";
+
+	private static final String FILE_PREFIX = "file:";
+
+	private volatile Map<String, Path> index;
+
+	@Override
+	public void afterPropertiesSet() {
+		final Thread indexer = new Thread(() -> this.buildIndex(classpathEntries()), "better-error-pages-source-indexer");
+		indexer.setDaemon(true);
+		indexer.start();
+	}
+
+	@Override
+	@Nullable
+	public Path locate(String packageName, String fileName) {
+		final Map<String, Path> index = this.index;
+
+		if (index == null) {
+			return null;
+		}
+		return index.get(packageName.isEmpty() ? fileName : packageName.replace('.', '/') + '/' + fileName);
+	}
+
+	boolean isReady() {
+		return index != null;
+	}
+
+	void buildIndex(Collection<Path> classpathEntries) {
+		final long start = System.currentTimeMillis();
+		final Map<String, Path> index = new HashMap<>();
+
+		final Set<Path> projectDirectories = new LinkedHashSet<>();
+		for (Path classpathEntry : classpathEntries) {
+			final Path projectDirectory = findProjectDirectory(classpathEntry);
+			if (projectDirectory != null) {
+				projectDirectories.add(projectDirectory);
+			}
+		}
+
+		final List<Path> sourceRoots = new ArrayList<>();
+		for (Path projectDirectory : projectDirectories) {
+			sourceRoots.addAll(findSourceRoots(projectDirectory));
+		}
+
+		for (Path sourceRoot : sourceRoots) {
+			try {
+				indexSourceRoot(sourceRoot, index);
+			}
+			catch (IOException e) {
+				log.debug("Cannot index source root {}", sourceRoot, e);
+			}
+		}
+
+		this.index = Collections.unmodifiableMap(index);
+
+		if (log.isDebugEnabled()) {
+			log.debug("Indexed {} source files in {} source roots of {} in {} ms", index.size(), sourceRoots.size(), projectDirectories,
+					  System.currentTimeMillis() - start);
+		}
+	}
+
+	@Nullable
+	private static Path findProjectDirectory(Path classpathEntry) {
+		Path path = classpathEntry.toAbsolutePath().normalize();
+
+		for (int depth = 0; path != null && depth <= MAX_OUTPUT_DIRECTORY_DEPTH; depth++, path = path.getParent()) {
+			final Path parent = path.getParent();
+			if (parent != null && path.getFileName() != null && OUTPUT_DIRECTORY_NAMES.contains(path.getFileName().toString())
+					&& Files.isDirectory(parent.resolve(SOURCE_DIRECTORY_NAME))) {
+				return parent;
+			}
+		}
+		return null;
+	}
+
+	private static List<Path> findSourceRoots(Path projectDirectory) {
+		final List<Path> sourceRoots = new ArrayList<>();
+
+		// src/main/java, src/test/kotlin, src/integrationTest/java...
+		for (Path sourceSet : directories(projectDirectory.resolve(SOURCE_DIRECTORY_NAME))) {
+			for (Path languageDirectory : directories(sourceSet)) {
+				if (!languageDirectory.getFileName().toString().equals(RESOURCES_DIRECTORY_NAME)) {
+					sourceRoots.add(languageDirectory);
+				}
+			}
+		}
+
+		// Maven: target/generated-sources/annotations
+		sourceRoots.addAll(directories(projectDirectory.resolve("target/generated-sources")));
+		sourceRoots.addAll(directories(projectDirectory.resolve("target/generated-test-sources")));
+
+		// Gradle: build/generated/sources/annotationProcessor/java/main
+		for (Path generator : directories(projectDirectory.resolve("build/generated/sources"))) {
+			for (Path language : directories(generator)) {
+				sourceRoots.addAll(directories(language));
+			}
+		}
+
+		return sourceRoots;
+	}
+
+	private static void indexSourceRoot(Path sourceRoot, Map<String, Path> index) throws IOException {
+		Files.walkFileTree(sourceRoot, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+				if (index.size() >= MAX_INDEXED_FILES) {
+					log.debug("Source index is limited to {} files, remaining files will be resolved from classpath", MAX_INDEXED_FILES);
+					return FileVisitResult.TERMINATE;
+				}
+
+				if (attributes.isRegularFile()) {
+					// First source root wins for the same file, main sources come before test sources
+					index.putIfAbsent(sourceRoot.relativize(file).toString().replace(File.separatorChar, '/'), file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private static List<Path> directories(Path directory) {
+		if (!Files.isDirectory(directory)) {
+			return Collections.emptyList();
+		}
+
+		final List<Path> directories = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isDirectory)) {
+			stream.forEach(directories::add);
+		}
+		catch (IOException e) {
+			log.debug("Cannot list {}", directory, e);
+		}
+
+		// Directory listing order is not defined, sorting makes "main" come before "test"
+		Collections.sort(directories);
+		return directories;
+	}
+
+	private static Set<Path> classpathEntries() {
+		final Set<Path> classpathEntries = new LinkedHashSet<>();
+
+		for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+			if (!entry.isEmpty()) {
+				classpathEntries.add(Paths.get(entry));
+			}
+		}
+
+		// Devtools' restart class loader and executable jar launchers don't appear on java.class.path
+		for (ClassLoader classLoader = ClassUtils.getDefaultClassLoader(); classLoader != null; classLoader = classLoader.getParent()) {
+			if (classLoader instanceof URLClassLoader) {
+				for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+					final Path path = toPath(url);
+					if (path != null) {
+						classpathEntries.add(path);
+					}
+				}
+			}
+		}
+
+		return classpathEntries;
+	}
+
+	/**
+	 * Maps both {@code file:/project/target/classes/} and {@code jar:file:/project/target/app.jar!/BOOT-INF/classes!/} to a local path
+	 */
+	@Nullable
+	private static Path toPath(URL url) {
+		String path = url.getPath();
+
+		final int jarSeparatorIndex = path.indexOf(JAR_URL_SEPARATOR);
+		if (jarSeparatorIndex >= 0) {
+			path = path.substring(0, jarSeparatorIndex);
+		}
+
+		if (path.startsWith(FILE_PREFIX)) {
+			path = path.substring(FILE_PREFIX.length());
+		}
+
+		try {
+			return path.isEmpty() ? null : Paths.get(path);
+		}
+		catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,264 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * <p>Archives REST errors off the request thread. The request thread only {@link ArchivedErrorPagesService#stamp(String, Map) stamps} the error
+ * attributes and queues them, a single background thread fingerprints the queued errors and puts them to the archive in batches.</p>
+ *
+ * <p>The queue is bounded, when it is full the oldest queued error is dropped and counted so that an error storm never blocks the failing requests.
+ * Errors stay visible while they are queued, looking them up returns their attributes as if they are archived in records of their own.</p>
+ *
+ * <p>Closing the writer lets the writer thread archive the queued errors before it stops. Errors arriving after it is closed are archived on the
+ * request thread.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+class ErrorArchiveWriter {
+
+	static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private static final int MAX_BATCH_SIZE = 64;
+
+	/**
+	 * How often the writer checks whether it is closed while the queue is empty
+	 */
+	private static final long POLL_TIMEOUT_MS = 100;
+
+	/**
+	 * How long closing waits for the queued errors to be archived before the writer is interrupted
+	 */
+	private static final long CLOSE_TIMEOUT_MS = 5000;
+
+	private final ArchivedErrorPagesService archivedErrorPagesService;
+
+	private final Function<String, String> fingerprinter;
+
+	/**
+	 * Many request threads produce, the writer thread consumes
+	 */
+	private final BlockingQueue<ArchivedErrorPagesService.ErrorTrace> queue;
+
+	/**
+	 * Queued errors and the ones being put, by their ids
+	 */
+	private final Map<String, ArchivedErrorPagesService.ErrorTrace> pendingErrors = new ConcurrentHashMap<>();
+
+	private final LongAdder droppedCount = new LongAdder();
+
+	private final Thread writer;
+
+	/**
+	 * Request threads queue errors under the read lock and closing takes the write lock, so that no error is queued after the writer thread sees
+	 * it is closed and archives the rest of the queue
+	 */
+	private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+	/**
+	 * Guarded by {@link #closeLock}, volatile for the writer thread to check it without locking
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * @param fingerprinter see {@link TraceParser#getFingerprint(String)}
+	 */
+	ErrorArchiveWriter(ArchivedErrorPagesService archivedErrorPagesService, Function<String, String> fingerprinter, int queueCapacity) {
+		this.archivedErrorPagesService = archivedErrorPagesService;
+		this.fingerprinter = fingerprinter;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+		this.writer = new Thread(this::drain, "better-error-pages-archive-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * Returns without waiting for the error to be archived, the attributes are stamped with the id before
+	 */
+	void archive(String errorId, Map<String, Object> errorAttributes) {
+		final ArchivedErrorPagesService.ErrorTrace errorTrace = archivedErrorPagesService.stamp(errorId, errorAttributes);
+
+		closeLock.readLock().lock();
+		try {
+			if (!closed) {
+				this.enqueue(errorTrace);
+				return;
+			}
+		}
+		finally {
+			closeLock.readLock().unlock();
+		}
+
+		this.write(Collections.singletonList(errorTrace));
+	}
+
+	private void enqueue(ArchivedErrorPagesService.ErrorTrace errorTrace) {
+		// Pending before queued so that the writer never removes it before it is added
+		pendingErrors.put(errorTrace.getErrorId(), errorTrace);
+
+		while (!queue.offer(errorTrace)) {
+			final ArchivedErrorPagesService.ErrorTrace dropped = queue.poll();
+
+			if (dropped != null) {
+				pendingErrors.remove(dropped.getErrorId(), dropped);
+				droppedCount.increment();
+
+				if (log.isDebugEnabled()) {
+					log.debug("Archive queue is full, error {} is dropped", dropped.getErrorId());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Viewing an archived error extends its lifetime, see {@link ArchivedErrorPagesService#getErrorAttributesById(String)}
+	 */
+	Optional<Map<String, Object>> getErrorAttributesById(String id) {
+		// Pending ones are looked up first, an error is removed from them only after it is archived
+		final ArchivedErrorPagesService.ErrorTrace pending = pendingErrors.get(id);
+		if (pending != null) {
+			return Optional.of(archivedErrorPagesService.getErrorAttributes(pending));
+		}
+		return archivedErrorPagesService.getErrorAttributesById(id);
+	}
+
+	long getDroppedCount() {
+		return droppedCount.sum();
+	}
+
+	int getQueuedCount() {
+		return queue.size();
+	}
+
+	/**
+	 * Stops the writer once it archives the queued errors, inferred as the destroy method of the bean. This bean depends on the one of the archive so
+	 * the archive is closed after the queued errors are archived. The writer is interrupted if it doesn't stop in time, then the rest of the queue is
+	 * dropped.
+	 */
+	public void close() {
+		closeLock.writeLock().lock();
+		try {
+			closed = true;
+		}
+		finally {
+			closeLock.writeLock().unlock();
+		}
+
+		try {
+			writer.join(CLOSE_TIMEOUT_MS);
+
+			if (writer.isAlive()) {
+				log.warn("Archive writer is not stopped in {} ms, {} queued errors are dropped", CLOSE_TIMEOUT_MS, queue.size());
+				writer.interrupt();
+				writer.join(CLOSE_TIMEOUT_MS);
+			}
+		}
+		catch (InterruptedException e) {
+			writer.interrupt();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Runs on the writer thread until the writer is closed, then archives the rest of the queue. Nothing is queued after it sees it is closed.
+	 */
+	private void drain() {
+		final List<ArchivedErrorPagesService.ErrorTrace> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
+		try {
+			while (!closed) {
+				final ArchivedErrorPagesService.ErrorTrace first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					this.writeBatch(batch);
+				}
+			}
+
+			while (!queue.isEmpty() && !Thread.currentThread().isInterrupted()) {
+				this.writeBatch(batch);
+			}
+		}
+		catch (InterruptedException e) {
+			// Closing timed out, the rest of the queue is dropped
+		}
+	}
+
+	/**
+	 * Fills the batch from the queue and writes it
+	 */
+	private void writeBatch(List<ArchivedErrorPagesService.ErrorTrace> batch) {
+		try {
+			queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+			this.write(batch);
+		}
+		finally {
+			batch.clear();
+		}
+	}
+
+	private void write(List<ArchivedErrorPagesService.ErrorTrace> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		try {
+			for (ArchivedErrorPagesService.ErrorTrace errorTrace : batch) {
+				errorTrace.fingerprint = this.fingerprint(errorTrace.getTrace());
+			}
+			archivedErrorPagesService.putErrorTraces(batch);
+		}
+		catch (RuntimeException e) {
+			log.warn("Cannot archive {} errors", batch.size(), e);
+		}
+		finally {
+			for (ArchivedErrorPagesService.ErrorTrace errorTrace : batch) {
+				pendingErrors.remove(errorTrace.getErrorId(), errorTrace);
+			}
+		}
+	}
+
+	@Nullable
+	private String fingerprint(@Nullable Object trace) {
+		if (!(trace instanceof String)) {
+			return null;
+		}
+
+		try {
+			return fingerprinter.apply((String) trace);
+		}
+		catch (RuntimeException e) {
+			log.debug("Cannot fingerprint the trace, the error is archived in a record of its own", e);
+			return null;
+		}
+	}
+}
@@ -12,24 +12,23 @@
 
 package io.summerframework.bettererrorpages;
 
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
 
 @Slf4j
 @Getter
 class ErrorContext {
 
 	enum FileType {
-		JAVA, HTML
+		JAVA, HTML;
+
+		static FileType of(Path sourceFilePath) {
+			return sourceFilePath.toString().endsWith(TEMPLATES_SUFFIX) ? HTML : JAVA;
+		}
 	}
 
 	private static final String TEMPLATES_SUFFIX = ".html";
@@ -38,6 +37,8 @@ class ErrorContext {
 
 	private static final char SPACE_CHARACTER = ' ';
 
+	static final String SOURCE_LOADING_TIMED_OUT = "Source loading timed out, it goes on in the background for the next error page.";
+
 	private final FileType fileType;
 
 	private final String fullyQualifiedClassName;
@@ -58,15 +59,23 @@ class ErrorContext {
 
 	private int errorLineNumber;
 
-	@Setter
+	/**
+	 * Source fields are only assigned by {@link #loadSourceCode(SourcePathResolver, SourceFileCache)} and {@link #sourceLoadingTimedOut()}, as the
+	 * contexts are shared by the repeats of an error through {@link TraceAnalysisCache}.
+	 */
 	private String sourceCodePath;
 
-	@Setter
 	private String sourceCode;
 
-	@Setter
 	private int firstLineNumber;
 
+	/**
+	 * Set when the source is not loaded before the deadline so that a late load doesn't change this context after it is rendered. Guarded by
+	 * {@code this}.
+	 */
+	@Getter(AccessLevel.NONE)
+	private boolean sourceLoadingTimedOut;
+
 	private ErrorContext(String traceLine, String templateName, String errorLineNumber) {
 		this.traceLine = traceLine;
 		this.errorLineNumber = Integer.parseInt(errorLineNumber);
@@ -84,8 +93,6 @@ class ErrorContext {
 		this.className = fileName;
 		this.fullyQualifiedClassName = this.fileName;
 		fileType = FileType.HTML;
-
-		this.parseSourceCode();
 	}
 
 	private ErrorContext(String traceLine, String fullyQualifiedClassName, String packageName, String className, String fileName, String errorLineNumber) {
@@ -96,8 +103,6 @@ class ErrorContext {
 		this.fileName = fileName;
 		this.errorLineNumber = Integer.parseInt(errorLineNumber);
 		fileType = FileType.JAVA;
-
-		this.parseSourceCode();
 	}
 
 
@@ -107,112 +112,119 @@ class ErrorContext {
 	}
 
 	/**
-	 * <pre>
-	 * matcher.group(0): whole line like at com.kodgemisi.demo.ExampleController.error(ExampleController.java:69)
-	 * matcher.group(1): fully qualified class name like like com.kodgemisi.demo.ExampleController
-	 * matcher.group(2): package name like com.kodgemisi.demo
-	 * matcher.group(3): class name like ExampleController
-	 * matcher.group(4): file name like ExampleController.java
-	 * matcher.group(5): line number like 69
-	 * </pre>
+	 * @param frame like {@code at com.kodgemisi.demo.ExampleController.error(ExampleController.java:69)}
+	 */
+	static ErrorContext fromApplicationFrame(TraceFrame frame) {
+		return new ErrorContext(frame.getMatchedContent(), frame.getFullyQualifiedClassName(), frame.getPackageName(), frame.getClassName(),
+								frame.getFileName(), frame.getLineNumber());
+	}
+
+	/**
+	 * @param element of a class in the application's package, which has a file name and a line number
 	 */
-	static ErrorContext extractFromClassMatcher(Matcher matcher) {
-		return new ErrorContext(matcher.group(0), matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(4), matcher.group(5));
+	static ErrorContext fromStackTraceElement(StackTraceElement element) {
+		final String className = element.getClassName();
+
+		// Inner classes are in the source file of their top level class
+		final int innerClassStart = className.indexOf('$');
+		final String fullyQualifiedClassName = innerClassStart < 0 ? className : className.substring(0, innerClassStart);
+		final int packageEnd = fullyQualifiedClassName.lastIndexOf('.');
+
+		// Same with the part of the trace line TraceTokenizer matches so that styledTrace can find this context
+		final String traceLine = "at " + className + '.' + element.getMethodName() + '(' + element.getFileName() + ':' + element.getLineNumber() + ')';
+
+		return new ErrorContext(traceLine, fullyQualifiedClassName, packageEnd < 0 ? "" : fullyQualifiedClassName.substring(0, packageEnd),
+								fullyQualifiedClassName.substring(packageEnd + 1), element.getFileName(), String.valueOf(element.getLineNumber()));
 	}
 
-	static ErrorContext extractFromTemplateMatcher(Matcher matcher) {
-		return new ErrorContext(matcher.group(0), matcher.group(1), matcher.group(2));
+	/**
+	 * @param frame containing a marker like {@code (template: "products/list" - line 3, col 5)}
+	 */
+	static ErrorContext fromTemplateMarker(TraceFrame frame) {
+		return new ErrorContext(frame.getMatchedContent(), frame.getFileName(), frame.getLineNumber());
 	}
 
-	private void parseSourceCode() {
+	/**
+	 * @param fileName like {@code templates/acme/index.html} for templates, which is not completed with the prefix and the suffix again
+	 * @return context of a frame of a {@link SnippetTokens token}, without a trace line
+	 */
+	static ErrorContext of(FileType fileType, String fullyQualifiedClassName, String fileName, int errorLineNumber) {
+		if (fileType == FileType.HTML) {
+			return new ErrorContext("", fileName, String.valueOf(errorLineNumber));
+		}
+
+		final int packageEnd = fullyQualifiedClassName.lastIndexOf('.');
+		return new ErrorContext("", fullyQualifiedClassName, packageEnd < 0 ? "" : fullyQualifiedClassName.substring(0, packageEnd),
+								fullyQualifiedClassName.substring(packageEnd + 1), fileName, String.valueOf(errorLineNumber));
+	}
+
+	/**
+	 * Reads the snippet around the error line, this is the blocking part of building an error context so {@link SourceCodeLoader} calls it in
+	 * parallel for the contexts of a trace.
+	 */
+	void loadSourceCode(SourcePathResolver sourcePathResolver, SourceFileCache sourceFileCache) {
+
+		String sourceCode;
+		Path sourceFilePath = null;
+		final int firstLineNumber = Math.max(this.getErrorLineNumber() - 6, 0);
 
 		try {
-			final Path sourceFilePath = getSourceFilePath();
+			sourceFilePath = getSourceFilePath(sourcePathResolver);
 
 			if (log.isTraceEnabled()) {
 				log.trace("sourceFilePath is {}", sourceFilePath);
 			}
 
-			final int firstLineNumber = Math.max(this.getErrorLineNumber() - 6, 0);
 			final int lastLineNumber = this.getErrorLineNumber() + 5;
-			final AtomicInteger index = new AtomicInteger();
 
-			String sourceCode = String.join("\n", Files.readAllLines(sourceFilePath).stream().filter(s -> {
-				final int currentLineNumber = index.getAndIncrement();
-				return currentLineNumber >= firstLineNumber && currentLineNumber < lastLineNumber;
-			}).toArray(String[]::new));
+			sourceCode = sourceFileCache.snippet(sourceFilePath, firstLineNumber, lastLineNumber);
 
 			// When the first line is a new line then the ACE editor ignores it, this is a fix for that behavior.
 			if (sourceCode.startsWith("\n")) {
 				sourceCode = SPACE_CHARACTER + sourceCode;
 			}
-
-			this.setFirstLineNumber(firstLineNumber + 1);
-			this.setSourceCode(sourceCode);
-			this.setSourceCodePath(sourceFilePath.toString());
 		}
-		catch (IOException | ClassNotFoundException e) {
+		catch (IOException e) {
 			if(log.isDebugEnabled()) {
 				log.debug(e.getMessage(), e);
 			}
-			this.setSourceCode("Cannot parse source file, exception is logged if better error pages logging level is debug.");
+			sourceFilePath = null;
+			sourceCode = "Cannot parse source file, exception is logged if better error pages logging level is debug.";
 			//TODO add parsing stacktrace to ErrorContext in order to make it easier to report errors via only submitting the produced HTML page.
 		}
-	}
 
-	private Path getSourceFilePath() throws ClassNotFoundException, IOException {
-
-		assert this.fileType != null && this.fullyQualifiedClassName != null && this.className != null
-				&& this.fileName != null : "ErrorContext should be fully initialized before this method is called.";
-
-		final String classFullPath;
-		if (this.getFileType() == ErrorContext.FileType.JAVA) {
-
-			final URL classUrl = Class.forName(this.getFullyQualifiedClassName()).getResource(this.getClassName() + ".class");
-
-			if (classUrl.getProtocol().equals("jar")) {
-				//@formatter:off
-				classFullPath = classUrl.getPath()
-										.replaceFirst("\\/target.*classes\\!", "/src/main/java")
-										.replace(".class", ".java")
-										.substring(5);// paths of files inside jars are reported with "file:" prefix.
-				//@formatter:on
-			}
-			else {
-				//@formatter:off
-				classFullPath = classUrl.getPath()
-										.replace("/target/classes", "/src/main/java")
-										.replace(".class", ".java")
-
-										//this addition is only necessary for non-jar executions as the tests only run in this way.
-										.replace("/target/test-classes", "/src/test/java");
-				//@formatter:on
+		synchronized (this) {
+			if (sourceLoadingTimedOut) {
+				return;
 			}
 
-			if (!classFullPath.endsWith(this.getFileName())) {
-				//that means this is an inner class so we need to replace the file name
-				return Paths.get(classFullPath.replace(this.getClassName() + ".java", this.getFileName()));
+			if (sourceFilePath != null) {
+				this.firstLineNumber = firstLineNumber + 1;
+				this.sourceCodePath = sourceFilePath.toString();
 			}
+			this.sourceCode = sourceCode;
 		}
-		else {
-
-			// Using classloader to load resource because it searches from the root of classpath even if the class is in some folder
-			final URL templateUrl = BetterErrorPagesService.class.getClassLoader().getResource(this.getFileName());
+	}
 
-			if (templateUrl == null) {
-				throw new IOException(this.getFileName() + " cannot be found.");
-			}
-			else {
-				if (templateUrl.getProtocol().equals("jar")) {
-					classFullPath = templateUrl.getPath().replaceFirst("\\/target.*classes\\!", "/src/main/resources").substring(5);
-				}
-				else {
-					classFullPath = templateUrl.getPath();
-				}
-			}
+	/**
+	 * Shows a placeholder instead of the source unless it is already loaded. Source code path stays null so that the context is not cached.
+	 */
+	synchronized void sourceLoadingTimedOut() {
+		if (sourceCode == null) {
+			sourceLoadingTimedOut = true;
+			this.sourceCode = SOURCE_LOADING_TIMED_OUT;
 		}
+	}
 
-		return Paths.get(classFullPath);
+	Path getSourceFilePath(SourcePathResolver sourcePathResolver) throws IOException {
+
+		assert this.fileType != null && this.fullyQualifiedClassName != null && this.className != null
+				&& this.fileName != null : "ErrorContext should be fully initialized before this method is called.";
+
+		if (this.getFileType() == ErrorContext.FileType.JAVA) {
+			return sourcePathResolver.resolveClass(this.getFullyQualifiedClassName(), this.getFileName());
+		}
+		return sourcePathResolver.resolveTemplate(this.getFileName());
 	}
 
 	@Override
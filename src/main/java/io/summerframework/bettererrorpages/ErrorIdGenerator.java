@@ -0,0 +1,30 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+/**
+ * <p>Generates the ids of the archived rest endpoint errors, which are sent in the {@code better-error-pages} header of the error responses.</p>
+ *
+ * <p>A bean of this type replaces the default implementation which generates time ordered ids like ULIDs.</p>
+ *
+ * <p>Implementations must be thread-safe and fast, this method is called for every rest endpoint error. Ids must be unique and safe to use as
+ * a path segment.</p>
+ *
+ * Created on October, 2026
+ */
+@FunctionalInterface
+public interface ErrorIdGenerator {
+
+	String generate();
+
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Request details of the repeats of an archived error, repeats with the same path and message are counted in the same occurrence.</p>
+ *
+ * <p>Instances of this class are immutable.</p>
+ *
+ * Created on October, 2026
+ */
+final class ErrorOccurrence {
+
+	private final String errorId;
+
+	@Nullable
+	private final String path;
+
+	@Nullable
+	private final String message;
+
+	private final long lastSeenMs;
+
+	private final long count;
+
+	private ErrorOccurrence(String errorId, @Nullable String path, @Nullable String message, long lastSeenMs, long count) {
+		this.errorId = errorId;
+		this.path = path;
+		this.message = message;
+		this.lastSeenMs = lastSeenMs;
+		this.count = count;
+	}
+
+	static ErrorOccurrence of(String errorId, Map<String, Object> errorAttributes, long now) {
+		final Object path = errorAttributes.get("path");
+		final Object message = errorAttributes.get("message");
+		return new ErrorOccurrence(errorId, path == null ? null : path.toString(), message == null ? null : message.toString(), now, 1);
+	}
+
+	boolean isSameRequest(ErrorOccurrence other) {
+		return Objects.equals(path, other.path) && Objects.equals(message, other.message);
+	}
+
+	/**
+	 * @return this occurrence counted once more with the id and the time of the repeat
+	 */
+	ErrorOccurrence repeatedBy(ErrorOccurrence repeat) {
+		return new ErrorOccurrence(repeat.errorId, path, message, repeat.lastSeenMs, count + repeat.count);
+	}
+
+	/**
+	 * @return id of the last repeat
+	 */
+	@ViewTemplateApi
+	public String getErrorId() {
+		return errorId;
+	}
+
+	@Nullable
+	@ViewTemplateApi
+	public String getPath() {
+		return path;
+	}
+
+	@Nullable
+	@ViewTemplateApi
+	public String getMessage() {
+		return message;
+	}
+
+	@ViewTemplateApi
+	public Date getLastSeen() {
+		return new Date(lastSeenMs);
+	}
+
+	@ViewTemplateApi
+	public long getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * <p>Times rendering of the error pages, which happens between the controller returning the view and the completion of the request. Timings are
+ * tagged with the name of the view, so full and lightweight error pages are told apart.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+class ErrorPageRenderTimer implements HandlerInterceptor {
+
+	private static final String VIEW_PREFIX = "better-error-pages";
+
+	private static final String START_KEY = ErrorPageRenderTimer.class.getName() + ".START";
+
+	private static final String VIEW_KEY = ErrorPageRenderTimer.class.getName() + ".VIEW";
+
+	private final BetterErrorPagesMetrics metrics;
+
+	ErrorPageRenderTimer(BetterErrorPagesMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, @Nullable ModelAndView modelAndView) {
+		final String viewName = modelAndView == null ? null : modelAndView.getViewName();
+
+		if (viewName != null && viewName.startsWith(VIEW_PREFIX)) {
+			request.setAttribute(VIEW_KEY, viewName);
+			request.setAttribute(START_KEY, System.nanoTime());
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, @Nullable Exception ex) {
+		final Object start = request.getAttribute(START_KEY);
+
+		if (start != null) {
+			request.removeAttribute(START_KEY);
+			metrics.recordTime(BetterErrorPagesMetrics.RENDER, (Long) start, "view", (String) request.getAttribute(VIEW_KEY));
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Shares the lines of archived traces, so that an archived trace is only an array of references to the lines in the dictionary. Traces of the
+ * same endpoint mostly consist of the same framework frames, so a line is kept once however many archived traces have it.</p>
+ *
+ * <p>Lines are reference counted and removed from the dictionary once no archived trace has them.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+final class FrameDictionary {
+
+	/**
+	 * Rough size of a {@link Frame} with its string and its map entry, excluding the characters
+	 */
+	private static final long FRAME_OVERHEAD = 96;
+
+	/**
+	 * Rough size of a reference in a frame array
+	 */
+	private static final long REFERENCE_SIZE = 4;
+
+	private static final Frame[] NO_FRAMES = {};
+
+	private final Map<String, Frame> frames = new ConcurrentHashMap<>();
+
+	private final AtomicLong bytes = new AtomicLong();
+
+	/**
+	 * Each line of the trace gets a reference, which is given back by {@link #release(Frame[])}
+	 */
+	Frame[] intern(String trace) {
+		if (trace.isEmpty()) {
+			return NO_FRAMES;
+		}
+
+		int lineCount = 1;
+		for (int i = trace.indexOf('\n'); i >= 0; i = trace.indexOf('\n', i + 1)) {
+			lineCount++;
+		}
+
+		final Frame[] traceFrames = new Frame[lineCount];
+		int lineStart = 0;
+		for (int i = 0; i < lineCount; i++) {
+			int lineEnd = trace.indexOf('\n', lineStart);
+			if (lineEnd < 0) {
+				lineEnd = trace.length();
+			}
+
+			traceFrames[i] = this.intern(trace, lineStart, lineEnd);
+			lineStart = lineEnd + 1;
+		}
+
+		return traceFrames;
+	}
+
+	private Frame intern(String trace, int lineStart, int lineEnd) {
+		// Reference counts are only changed while the map locks the line
+		return frames.compute(trace.substring(lineStart, lineEnd), (line, frame) -> {
+			if (frame == null) {
+				frame = new Frame(line);
+				bytes.addAndGet(sizeOf(line));
+			}
+			frame.references++;
+			return frame;
+		});
+	}
+
+	void release(Frame[] traceFrames) {
+		for (Frame traceFrame : traceFrames) {
+			frames.computeIfPresent(traceFrame.line, (line, frame) -> {
+				if (--frame.references > 0) {
+					return frame;
+				}
+				bytes.addAndGet(-sizeOf(line));
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * @return the trace as it is interned
+	 */
+	static String rebuild(Frame[] traceFrames) {
+		int length = Math.max(0, traceFrames.length - 1);
+		for (Frame traceFrame : traceFrames) {
+			length += traceFrame.line.length();
+		}
+
+		final StringBuilder trace = new StringBuilder(length);
+		for (int i = 0; i < traceFrames.length; i++) {
+			if (i > 0) {
+				trace.append('\n');
+			}
+			trace.append(traceFrames[i].line);
+		}
+		return trace.toString();
+	}
+
+	/**
+	 * @return size of the frame array of a trace, its lines are counted in {@link #getBytes()}
+	 */
+	static long sizeOf(Frame[] traceFrames) {
+		return REFERENCE_SIZE * (traceFrames.length + 4);
+	}
+
+	private static long sizeOf(String line) {
+		return FRAME_OVERHEAD + 2L * line.length();
+	}
+
+	/**
+	 * @return estimated size of the lines in the dictionary
+	 */
+	long getBytes() {
+		return bytes.get();
+	}
+
+	int getFrameCount() {
+		return frames.size();
+	}
+
+	static final class Frame {
+
+		private final String line;
+
+		/**
+		 * Guarded by the lock of the line in the dictionary
+		 */
+		private int references;
+
+		private Frame(String line) {
+			this.line = line;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * <p>Byte offsets of the line starts of a file so that any range of lines can be read by seeking directly to its bytes.</p>
+ *
+ * <p>Lines are split the same way {@link SourceSnippetReader} splits them. A leading UTF-8 byte order mark is not a part of the first line.
+ * Indexing works on bytes hence it is only possible for ASCII compatible encodings, files starting with a UTF-16 byte order mark are not indexed.</p>
+ *
+ * <p>Instances of this class are immutable.</p>
+ *
+ * Created on October, 2026
+ */
+final class LineIndex {
+
+	private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * {@code lineStarts[i]} is the offset of the first byte of line {@code i}, the last element is the length of the file.
+	 */
+	private final long[] lineStarts;
+
+	private LineIndex(long[] lineStarts) {
+		this.lineStarts = lineStarts;
+	}
+
+	@Nullable
+	static LineIndex of(byte[] content) {
+		final int bomLength = bomLength(content, content.length);
+
+		if (bomLength < 0) {
+			return null;
+		}
+
+		final Builder builder = new Builder(bomLength);
+		for (int i = bomLength; i < content.length; i++) {
+			builder.accept(content[i], i);
+		}
+		return builder.build(content.length);
+	}
+
+	@Nullable
+	static LineIndex of(FileChannel channel) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(CHANNEL_BUFFER_SIZE);
+		long position = 0;
+
+		channel.read(buffer, 0);
+		final int bomLength = bomLength(buffer.array(), buffer.position());
+
+		if (bomLength < 0) {
+			return null;
+		}
+
+		final Builder builder = new Builder(bomLength);
+		buffer.clear();
+		position += bomLength;
+
+		int read;
+		while ((read = channel.read(buffer, position)) != -1) {
+			final byte[] bytes = buffer.array();
+			for (int i = 0; i < read; i++) {
+				builder.accept(bytes[i], position + i);
+			}
+			position += read;
+			buffer.clear();
+		}
+		return builder.build(position);
+	}
+
+	/**
+	 * @return -1 if the content is UTF-16 encoded
+	 */
+	private static int bomLength(byte[] content, int length) {
+		if (length >= 3 && (content[0] & 0xFF) == 0xEF && (content[1] & 0xFF) == 0xBB && (content[2] & 0xFF) == 0xBF) {
+			return 3;
+		}
+		if (length >= 2 && (((content[0] & 0xFF) == 0xFE && (content[1] & 0xFF) == 0xFF) || ((content[0] & 0xFF) == 0xFF && (content[1] & 0xFF) == 0xFE))) {
+			return -1;
+		}
+		return 0;
+	}
+
+	int getLineCount() {
+		return lineStarts.length - 1;
+	}
+
+	/**
+	 * @param line zero based line index, {@link #getLineCount()} gives the end of the file
+	 */
+	long getLineStart(int line) {
+		return lineStarts[line];
+	}
+
+	long getSizeInBytes() {
+		return (long) lineStarts.length * Long.BYTES;
+	}
+
+	private static final class Builder {
+
+		private long[] lineStarts = new long[256];
+
+		private int size;
+
+		private boolean previousWasCarriageReturn;
+
+		private Builder(long firstLineStart) {
+			this.add(firstLineStart);
+		}
+
+		private void accept(byte b, long position) {
+			if (previousWasCarriageReturn) {
+				previousWasCarriageReturn = false;
+				if (b == '\n') {
+					// \r\n is a single terminator, the line starts after \n
+					lineStarts[size - 1] = position + 1;
+					return;
+				}
+			}
+
+			if (b == '\n') {
+				this.add(position + 1);
+			}
+			else if (b == '\r') {
+				this.add(position + 1);
+				previousWasCarriageReturn = true;
+			}
+		}
+
+		private LineIndex build(long length) {
+			// When the file ends with a terminator the last recorded start is already the end of the file
+			if (lineStarts[size - 1] != length) {
+				this.add(length);
+			}
+			return new LineIndex(Arrays.copyOf(lineStarts, size));
+		}
+
+		private void add(long lineStart) {
+			if (size == lineStarts.length) {
+				lineStarts = Arrays.copyOf(lineStarts, size * 2);
+			}
+			lineStarts[size++] = lineStart;
+		}
+	}
+}
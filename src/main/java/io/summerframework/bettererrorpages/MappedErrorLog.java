@@ -0,0 +1,438 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Append-only log of archived errors kept in memory mapped segment files, so that archived errors survive restarts and their attributes
+ * are not kept on heap.</p>
+ *
+ * <p>Each record is {@code int length | int crc32 | body} where the body has the error id, the archive time and the attributes in a compact
+ * binary form. Segment files are allocated with a fixed size up front, a zero length marks the end of the written part of a segment.
+ * A record which is cut by a crash is detected by its checksum and ends the segment too.</p>
+ *
+ * <p>Segments of the previous runs are only read, new records are always appended to new segments. Segments without live records are deleted
+ * and segments with few live records are compacted by copying their live records to the current segment, see {@link ArchivedErrorPagesService}.</p>
+ *
+ * <p>Attribute values other than strings, numbers, booleans, dates and lists of them are stored as their {@code toString()}.</p>
+ *
+ * <p>Instances of this class are thread-safe, appends are serialized but reads don't lock.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+final class MappedErrorLog {
+
+	static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	private static final String SEGMENT_PREFIX = "errors-";
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	/**
+	 * length and crc32
+	 */
+	private static final int HEADER_SIZE = 8;
+
+	private static final byte TAG_NULL = 0;
+
+	private static final byte TAG_STRING = 1;
+
+	private static final byte TAG_INTEGER = 2;
+
+	private static final byte TAG_LONG = 3;
+
+	private static final byte TAG_BOOLEAN = 4;
+
+	private static final byte TAG_DATE = 5;
+
+	private static final byte TAG_LIST = 6;
+
+	private final Path directory;
+
+	private final int segmentSize;
+
+	/**
+	 * In the order of their sequence, the last one is the current segment once anything is appended
+	 */
+	private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Guarded by this
+	 */
+	private Segment current;
+
+	/**
+	 * Guarded by this
+	 */
+	private long nextSequence;
+
+	MappedErrorLog(Path directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	MappedErrorLog(Path directory, int segmentSize) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.segmentSize = segmentSize;
+	}
+
+	@FunctionalInterface
+	interface RecoveredRecordConsumer {
+
+		void accept(String id, long archivedAt, Location location);
+	}
+
+	/**
+	 * Maps the segments of the previous runs and passes their records in the order they are appended. Recovered records are live until they are
+	 * {@link #release(Location) released}.
+	 */
+	synchronized void recover(RecoveredRecordConsumer consumer) throws IOException {
+		final List<Path> segmentFiles = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			for (Path segmentFile : stream) {
+				segmentFiles.add(segmentFile);
+			}
+		}
+
+		// Sequences are zero padded
+		Collections.sort(segmentFiles);
+
+		for (Path segmentFile : segmentFiles) {
+			final Segment segment;
+			try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+				segment = new Segment(segmentFile, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			}
+			segment.sealed = true;
+			segments.add(segment);
+			nextSequence = Math.max(nextSequence, sequenceOf(segmentFile) + 1);
+
+			int offset = 0;
+			final ByteBuffer buffer = segment.buffer;
+			while (offset + HEADER_SIZE <= buffer.capacity()) {
+				final int length = buffer.getInt(offset);
+				if (length <= 0 || length > buffer.capacity() - offset - HEADER_SIZE) {
+					break;
+				}
+
+				final byte[] body = readBody(segment, offset, length);
+				if (crc32(body) != buffer.getInt(offset + Integer.BYTES)) {
+					log.warn("Archived errors in {} are ignored after offset {} as they are corrupted", segmentFile, offset);
+					break;
+				}
+
+				final DataInputStream input = new DataInputStream(new ByteArrayInputStream(body));
+				final Location location = new Location(segment, offset, HEADER_SIZE + length);
+				segment.writePosition = offset + location.length;
+				segment.liveBytes.addAndGet(location.length);
+				consumer.accept(readString(input), input.readLong(), location);
+				offset += location.length;
+			}
+		}
+	}
+
+	Location append(String id, long archivedAt, Map<String, Object> attributes) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+		final DataOutputStream output = new DataOutputStream(bytes);
+		writeString(output, id);
+		output.writeLong(archivedAt);
+		output.writeInt(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			writeString(output, entry.getKey());
+			writeValue(output, entry.getValue());
+		}
+		output.flush();
+		return appendBody(bytes.toByteArray());
+	}
+
+	/**
+	 * Appends the record once more to the current segment, used to compact segments
+	 */
+	Location copy(Location location) throws IOException {
+		return appendBody(readBody(location.segment, location.offset, location.length - HEADER_SIZE));
+	}
+
+	Map<String, Object> read(Location location) throws IOException {
+		final DataInputStream input = new DataInputStream(
+				new ByteArrayInputStream(readBody(location.segment, location.offset, location.length - HEADER_SIZE)));
+
+		// id and archive time
+		readString(input);
+		input.readLong();
+
+		final int size = input.readInt();
+		final Map<String, Object> attributes = new LinkedHashMap<>(size * 2);
+		for (int i = 0; i < size; i++) {
+			attributes.put(readString(input), readValue(input));
+		}
+		return attributes;
+	}
+
+	/**
+	 * Marks the record as not live anymore, each record is released only once
+	 */
+	void release(Location location) {
+		location.segment.liveBytes.addAndGet(-location.length);
+	}
+
+	/**
+	 * @return true if the record is in a segment worth compacting, which is sealed and has more dead records than live ones
+	 */
+	boolean isInSparseSegment(Location location) {
+		final Segment segment = location.segment;
+		return segment.sealed && segment.liveBytes.get() < segment.writePosition / 2;
+	}
+
+	boolean hasSparseSegments() {
+		for (Segment segment : segments) {
+			if (segment.sealed && segment.liveBytes.get() < segment.writePosition / 2) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Deletes the sealed segments without live records. Locations in them stay readable as long as they are referenced as the mapping outlives the file.
+	 */
+	void deleteEmptySegments() {
+		for (Segment segment : segments) {
+			if (segment.sealed && segment.liveBytes.get() == 0) {
+				segments.remove(segment);
+				try {
+					Files.deleteIfExists(segment.path);
+					log.debug("Deleted archived error segment {}", segment.path);
+				}
+				catch (IOException e) {
+					// Mapped files cannot be deleted on some platforms, it is retried after the next restart
+					log.debug("Cannot delete archived error segment {}", segment.path, e);
+				}
+			}
+		}
+	}
+
+	int getSegmentCount() {
+		return segments.size();
+	}
+
+	synchronized void close() {
+		if (current != null) {
+			current.buffer.force();
+		}
+	}
+
+	private synchronized Location appendBody(byte[] body) throws IOException {
+		final int recordLength = HEADER_SIZE + body.length;
+
+		// Leaves room for the zero length which marks the end
+		if (current == null || current.buffer.capacity() - current.writePosition < recordLength + Integer.BYTES) {
+			rotate(recordLength + Integer.BYTES);
+		}
+
+		final int offset = current.writePosition;
+		final ByteBuffer buffer = current.buffer.duplicate();
+		buffer.position(offset + Integer.BYTES);
+		buffer.putInt(crc32(body));
+		buffer.put(body);
+
+		// Length is written last so that a partially written record is never read
+		buffer.putInt(offset, body.length);
+
+		current.writePosition += recordLength;
+		current.liveBytes.addAndGet(recordLength);
+		return new Location(current, offset, recordLength);
+	}
+
+	private void rotate(int minimumSize) throws IOException {
+		if (current != null) {
+			current.buffer.force();
+			current.sealed = true;
+		}
+
+		final Path segmentFile = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+		try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			current = new Segment(segmentFile, channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, minimumSize)));
+		}
+		segments.add(current);
+	}
+
+	private static byte[] readBody(Segment segment, int offset, int length) {
+		final ByteBuffer buffer = segment.buffer.duplicate();
+		buffer.position(offset + HEADER_SIZE);
+		final byte[] body = new byte[length];
+		buffer.get(body);
+		return body;
+	}
+
+	private static long sequenceOf(Path segmentFile) {
+		final String fileName = segmentFile.getFileName().toString();
+		try {
+			return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private static int crc32(byte[] body) {
+		final CRC32 crc32 = new CRC32();
+		crc32.update(body, 0, body.length);
+		return (int) crc32.getValue();
+	}
+
+	private static void writeValue(DataOutputStream output, Object value) throws IOException {
+		if (value == null) {
+			output.writeByte(TAG_NULL);
+		}
+		else if (value instanceof Integer) {
+			output.writeByte(TAG_INTEGER);
+			output.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			output.writeByte(TAG_LONG);
+			output.writeLong((Long) value);
+		}
+		else if (value instanceof Boolean) {
+			output.writeByte(TAG_BOOLEAN);
+			output.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Date) {
+			output.writeByte(TAG_DATE);
+			output.writeLong(((Date) value).getTime());
+		}
+		else if (value instanceof Collection) {
+			final Collection<?> collection = (Collection<?>) value;
+			output.writeByte(TAG_LIST);
+			output.writeInt(collection.size());
+			for (Object element : collection) {
+				writeValue(output, element);
+			}
+		}
+		else {
+			output.writeByte(TAG_STRING);
+			writeString(output, value.toString());
+		}
+	}
+
+	private static Object readValue(DataInputStream input) throws IOException {
+		final byte tag = input.readByte();
+		switch (tag) {
+			case TAG_NULL:
+				return null;
+			case TAG_INTEGER:
+				return input.readInt();
+			case TAG_LONG:
+				return input.readLong();
+			case TAG_BOOLEAN:
+				return input.readBoolean();
+			case TAG_DATE:
+				return new Date(input.readLong());
+			case TAG_LIST:
+				final int size = input.readInt();
+				final List<Object> list = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(input));
+				}
+				return list;
+			case TAG_STRING:
+				return readString(input);
+			default:
+				throw new IOException("Unknown attribute tag " + tag);
+		}
+	}
+
+	/**
+	 * {@link DataOutputStream#writeUTF(String)} is limited to 64KB which traces may exceed
+	 */
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		final byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Position of a record in the log, kept on heap instead of the attributes
+	 */
+	static final class Location {
+
+		private final Segment segment;
+
+		private final int offset;
+
+		/**
+		 * Including the header
+		 */
+		private final int length;
+
+		private Location(Segment segment, int offset, int length) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		int getLength() {
+			return length;
+		}
+	}
+
+	private static final class Segment {
+
+		private final Path path;
+
+		private final MappedByteBuffer buffer;
+
+		private final AtomicLong liveBytes = new AtomicLong();
+
+		/**
+		 * Only changed while appending, the segment is never appended again once it is sealed
+		 */
+		private volatile int writePosition;
+
+		private volatile boolean sealed;
+
+		private Segment(Path path, MappedByteBuffer buffer) {
+			this.path = path;
+			this.buffer = buffer;
+		}
+	}
+}
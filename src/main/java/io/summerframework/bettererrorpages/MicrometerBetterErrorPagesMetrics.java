@@ -0,0 +1,89 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Records the stages of building error pages as timers and counters of a {@link MeterRegistry}, all named with the
+ * {@value BetterErrorPagesMetrics#PREFIX} prefix. Binds the sizes of the archive and the caches as gauges too.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+class MicrometerBetterErrorPagesMetrics extends BetterErrorPagesMetrics {
+
+	private final MeterRegistry meterRegistry;
+
+	MicrometerBetterErrorPagesMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	void recordTime(String stage, long startNanos, String... tags) {
+		meterRegistry.timer(PREFIX + stage, tags).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	void count(String event, String... tags) {
+		meterRegistry.counter(PREFIX + event, tags).increment();
+	}
+
+	/**
+	 * Registers the gauges, which are sampled by the registry, while the timers and counters are registered when they are first recorded. The
+	 * gauged beans record to these metrics, so they are bound after all of them are created.
+	 */
+	void bindGauges(ArchivedErrorPagesService archivedErrorPagesService, ErrorArchiveWriter errorArchiveWriter, RenderBulkhead renderBulkhead,
+			TraceAnalysisCache traceAnalysisCache, SourceFileCache sourceFileCache) {
+		//@formatter:off
+		Gauge.builder(PREFIX + "archive.entries", archivedErrorPagesService, ArchivedErrorPagesService::getEntryCount)
+			 .description("Archived rest endpoint errors")
+			 .register(meterRegistry);
+		Gauge.builder(PREFIX + "archive.bytes", archivedErrorPagesService, ArchivedErrorPagesService::getCurrentBytes)
+			 .description("Estimated size of the archived rest endpoint errors")
+			 .baseUnit("bytes")
+			 .register(meterRegistry);
+		Gauge.builder(PREFIX + "archive.frames", archivedErrorPagesService, ArchivedErrorPagesService::getFrameCount)
+			 .description("Distinct trace lines shared by the archived errors")
+			 .register(meterRegistry);
+		FunctionCounter.builder(PREFIX + "archive.evictions", archivedErrorPagesService, ArchivedErrorPagesService::getEvictionCount)
+					   .register(meterRegistry);
+		FunctionCounter.builder(PREFIX + "archive.expirations", archivedErrorPagesService, ArchivedErrorPagesService::getExpirationCount)
+					   .register(meterRegistry);
+
+		Gauge.builder(PREFIX + "archive.queue.size", errorArchiveWriter, ErrorArchiveWriter::getQueuedCount)
+			 .description("Rest endpoint errors waiting to be archived")
+			 .register(meterRegistry);
+		FunctionCounter.builder(PREFIX + "archive.queue.dropped", errorArchiveWriter, ErrorArchiveWriter::getDroppedCount)
+					   .description("Rest endpoint errors dropped as the archive queue was full")
+					   .register(meterRegistry);
+
+		Gauge.builder(PREFIX + "render.active", renderBulkhead, RenderBulkhead::getActiveRenders)
+			 .register(meterRegistry);
+		FunctionCounter.builder(PREFIX + "render.degraded", renderBulkhead, RenderBulkhead::getDegradedRenderCount)
+					   .description("Lightweight error pages rendered as too many error pages were being rendered")
+					   .register(meterRegistry);
+
+		Gauge.builder(PREFIX + "source.cache.bytes", sourceFileCache, SourceFileCache::getCurrentBytes)
+			 .baseUnit("bytes")
+			 .register(meterRegistry);
+		Gauge.builder(PREFIX + "trace.analysis.cache.entries", traceAnalysisCache, TraceAnalysisCache::getEntryCount)
+			 .register(meterRegistry);
+		//@formatter:on
+	}
+}
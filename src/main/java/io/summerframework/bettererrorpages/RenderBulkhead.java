@@ -0,0 +1,122 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Limits the number of error pages rendered at the same time, so that a burst of errors cannot occupy all the request threads by rendering
+ * their error pages. Requests over the limit wait for a render to finish up to the wait timeout, then they get a lightweight error page.</p>
+ *
+ * <p>A permit is held until the view is rendered, which happens after the controller returns. So the permit is released when the request is
+ * completed, as this is also a {@link HandlerInterceptor}.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+class RenderBulkhead implements HandlerInterceptor {
+
+	static final int DEFAULT_MAX_CONCURRENT_RENDERS = 4;
+
+	static final long DEFAULT_WAIT_TIMEOUT = 500;
+
+	private static final String PERMIT_KEY = RenderBulkhead.class.getName() + ".PERMIT";
+
+	private final int maxConcurrentRenders;
+
+	private final Semaphore permits;
+
+	private final long waitTimeout;
+
+	private final LongAdder fullRenderCount = new LongAdder();
+
+	private final LongAdder degradedRenderCount = new LongAdder();
+
+	/**
+	 * @param waitTimeout in milliseconds for a request over the limit to wait for a render to finish
+	 */
+	RenderBulkhead(int maxConcurrentRenders, long waitTimeout) {
+		this.maxConcurrentRenders = maxConcurrentRenders;
+		this.permits = new Semaphore(maxConcurrentRenders);
+		this.waitTimeout = waitTimeout;
+	}
+
+	/**
+	 * @return true if the error page can be rendered fully, false if a lightweight one should be rendered
+	 */
+	boolean tryAcquire(HttpServletRequest request) {
+		// Nested dispatches of a request share its permit
+		if (request.getAttribute(PERMIT_KEY) != null) {
+			return true;
+		}
+
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(waitTimeout, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+
+		if (!acquired) {
+			degradedRenderCount.increment();
+
+			if (log.isDebugEnabled()) {
+				log.debug("Rendering a lightweight error page for {}, {} error pages are being rendered", request.getRequestURI(), this.getActiveRenders());
+			}
+			return false;
+		}
+
+		request.setAttribute(PERMIT_KEY, Boolean.TRUE);
+		fullRenderCount.increment();
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, @Nullable Exception ex) {
+		this.release(request);
+	}
+
+	/**
+	 * Releases the permit of the request if it has one, only once
+	 */
+	void release(HttpServletRequest request) {
+		if (request.getAttribute(PERMIT_KEY) != null) {
+			request.removeAttribute(PERMIT_KEY);
+			permits.release();
+		}
+	}
+
+	long getFullRenderCount() {
+		return fullRenderCount.sum();
+	}
+
+	long getDegradedRenderCount() {
+		return degradedRenderCount.sum();
+	}
+
+	int getActiveRenders() {
+		return maxConcurrentRenders - permits.availablePermits();
+	}
+}
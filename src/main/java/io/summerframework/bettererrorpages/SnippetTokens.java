@@ -0,0 +1,128 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * <p>Opaque tokens of the frames of error contexts, by which the source snippets of the error contexts are fetched after the error page is shown.
+ * A token carries the file and the error line of its frame and is signed with a key of the process, so only the frames of the rendered error pages
+ * can be fetched, not arbitrary files.</p>
+ *
+ * <p>Tokens don't survive restarts, error pages rendered before a restart show their snippets that are embedded only.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+class SnippetTokens {
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private static final int KEY_LENGTH = 32;
+
+	/**
+	 * Bytes of the signature kept in the token, enough for a key which lives as long as the process
+	 */
+	private static final int SIGNATURE_LENGTH = 16;
+
+	private static final char SEPARATOR = '\n';
+
+	private final SecretKeySpec key;
+
+	/**
+	 * Signs the tokens with a random key, which lives as long as this instance
+	 */
+	SnippetTokens() {
+		this(randomKey());
+	}
+
+	SnippetTokens(byte[] key) {
+		this.key = new SecretKeySpec(key, ALGORITHM);
+	}
+
+	/**
+	 * @return URL safe token like {@code <frame>.<signature>}, by which the source snippet of the context is fetched when it is not embedded into
+	 * the error page
+	 */
+	@ViewTemplateApi
+	public String tokenOf(ErrorContext errorContext) {
+		//@formatter:off
+		final String frame = errorContext.getFileType().name() + SEPARATOR
+							 + errorContext.getFullyQualifiedClassName() + SEPARATOR
+							 + errorContext.getFileName() + SEPARATOR
+							 + errorContext.getErrorLineNumber();
+		//@formatter:on
+		final byte[] frameBytes = frame.getBytes(StandardCharsets.UTF_8);
+		final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+		return encoder.encodeToString(frameBytes) + '.' + encoder.encodeToString(this.sign(frameBytes));
+	}
+
+	/**
+	 * @return error context of the frame of the token, without its source, null if the token is not issued by this instance
+	 */
+	@Nullable
+	ErrorContext errorContextOf(String token) {
+		final int separator = token.indexOf('.');
+
+		if (separator < 0) {
+			return null;
+		}
+
+		try {
+			final Base64.Decoder decoder = Base64.getUrlDecoder();
+			final byte[] frameBytes = decoder.decode(token.substring(0, separator));
+
+			if (!MessageDigest.isEqual(this.sign(frameBytes), decoder.decode(token.substring(separator + 1)))) {
+				return null;
+			}
+
+			final String[] frame = new String(frameBytes, StandardCharsets.UTF_8).split(String.valueOf(SEPARATOR), -1);
+			return ErrorContext.of(ErrorContext.FileType.valueOf(frame[0]), frame[1], frame[2], Integer.parseInt(frame[3]));
+		}
+		catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			log.debug("Invalid snippet token {}", token, e);
+			return null;
+		}
+	}
+
+	private byte[] sign(byte[] frameBytes) {
+		try {
+			final Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return Arrays.copyOf(mac.doFinal(frameBytes), SIGNATURE_LENGTH);
+		}
+		catch (GeneralSecurityException e) {
+			// Every JVM has HmacSHA256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] randomKey() {
+		final byte[] key = new byte[KEY_LENGTH];
+		new SecureRandom().nextBytes(key);
+		return key;
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Loads the source snippets of the error contexts of a trace in parallel, see {@link ErrorContext#loadSourceCode(SourcePathResolver, SourceFileCache)}.</p>
+ *
+ * <p>Snippets are loaded on virtual threads when the JVM has them, otherwise on a bounded pool of daemon threads. Loading of all the contexts of a
+ * trace is bounded by an overall deadline, contexts whose snippets are not loaded in time {@link ErrorContext#sourceLoadingTimedOut() show a
+ * placeholder}. Late loads are not cancelled, they go on to warm {@link SourceFileCache} and {@link SourcePathResolver} for the next error page.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+class SourceCodeLoader {
+
+	static final long DEFAULT_TIMEOUT = 2000;
+
+	static final int DEFAULT_PREFETCH_COUNT = 1;
+
+	private static final int MAX_THREADS = 8;
+
+	private static final int MAX_QUEUED_LOADS = 256;
+
+	private final ExecutorService executor;
+
+	private final SourcePathResolver sourcePathResolver;
+
+	private final SourceFileCache sourceFileCache;
+
+	private final long timeout;
+
+	private final int prefetchCount;
+
+	/**
+	 * @param executor           which is shut down when this loader is {@link #close() closed}
+	 * @param sourcePathResolver which the source files of the contexts are resolved by
+	 * @param sourceFileCache    which the snippets and the expanded lines are read from
+	 * @param timeout            in milliseconds for the snippets of all the contexts of a trace
+	 * @param prefetchCount      number of the first error contexts of a trace whose snippets are embedded into the error page, negative for all
+	 */
+	SourceCodeLoader(ExecutorService executor, SourcePathResolver sourcePathResolver, SourceFileCache sourceFileCache, long timeout, int prefetchCount) {
+		this.executor = executor;
+		this.sourcePathResolver = sourcePathResolver;
+		this.sourceFileCache = sourceFileCache;
+		this.timeout = timeout;
+		this.prefetchCount = prefetchCount;
+	}
+
+	long getTimeout() {
+		return timeout;
+	}
+
+	int getPrefetchCount() {
+		return prefetchCount;
+	}
+
+	/**
+	 * Loads the snippets of the first {@link #getPrefetchCount() prefetch count} contexts, the others are left without their sources and the
+	 * error page fetches them by their {@link SnippetTokens tokens} when they are shown
+	 */
+	void prefetch(List<ErrorContext> errorContexts) {
+		this.load(prefetchCount < 0 || prefetchCount >= errorContexts.size() ? errorContexts : errorContexts.subList(0, prefetchCount));
+	}
+
+	/**
+	 * Returns when all the snippets are loaded or the deadline passes, whichever comes first
+	 */
+	void load(List<ErrorContext> errorContexts) {
+		if (errorContexts.isEmpty()) {
+			return;
+		}
+
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		final List<Future<?>> loads = new ArrayList<>(errorContexts.size());
+
+		for (ErrorContext errorContext : errorContexts) {
+			try {
+				loads.add(executor.submit(() -> errorContext.loadSourceCode(sourcePathResolver, sourceFileCache)));
+			}
+			catch (RejectedExecutionException e) {
+				// Saturated by an error storm, the context shows the placeholder rather than queueing more I/O
+				loads.add(null);
+			}
+		}
+
+		boolean interrupted = false;
+
+		for (int i = 0; i < errorContexts.size(); i++) {
+			final Future<?> load = loads.get(i);
+
+			try {
+				if (load == null || interrupted) {
+					errorContexts.get(i).sourceLoadingTimedOut();
+					continue;
+				}
+				load.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+			}
+			catch (TimeoutException e) {
+				if (log.isDebugEnabled()) {
+					log.debug("Source of {} is not loaded in {} ms", errorContexts.get(i).getId(), timeout);
+				}
+				errorContexts.get(i).sourceLoadingTimedOut();
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+				errorContexts.get(i).sourceLoadingTimedOut();
+			}
+			catch (ExecutionException e) {
+				log.debug(e.getMessage(), e);
+				errorContexts.get(i).sourceLoadingTimedOut();
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Reads lines around the snippet of a context so that the snippet can be expanded in the error page, the lines are taken from the same
+	 * {@link SourceFileCache cached} line index as the snippet
+	 *
+	 * @param fromLine one based number of the first line
+	 * @param toLine   one based number of the last line, inclusive
+	 */
+	String readLines(ErrorContext errorContext, int fromLine, int toLine) throws IOException {
+		return sourceFileCache.snippet(errorContext.getSourceFilePath(sourcePathResolver), fromLine - 1, toLine);
+	}
+
+	/**
+	 * @return number of lines of the source file of a context, -1 if it is not known without reading the whole file
+	 */
+	int countLines(ErrorContext errorContext) throws IOException {
+		return sourceFileCache.lineCount(errorContext.getSourceFilePath(sourcePathResolver));
+	}
+
+	/**
+	 * Stops the threads of the loader, inferred as the destroy method of the bean. Late loads still running are interrupted.
+	 */
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Virtual threads are looked up reflectively as the starter targets Java 8
+	 */
+	static ExecutorService createExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			log.trace("Virtual threads are not available, source snippets are loaded on a thread pool");
+		}
+
+		final int threads = Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() * 2);
+		final AtomicInteger threadCount = new AtomicInteger();
+
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_LOADS), runnable -> {
+			final Thread thread = new Thread(runnable, "better-error-pages-source-loader-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Cache of source files' contents which are shown in error pages.</p>
+ *
+ * <p>The cache is bounded by the total size of the cached files and the least recently used files are evicted first.
+ * Every access validates the cached content against the file's last modified time and size so edited sources are never served stale.</p>
+ *
+ * <p>Each file is cached along with its {@link LineIndex} so a snippet of any line is extracted without scanning the file.
+ * Contents of files bigger than a quarter of the cache size are never cached, only their line index is kept and their snippets
+ * are read from the disk with positional reads.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+class SourceFileCache {
+
+	static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+	/**
+	 * Access ordered so iteration starts from the least recently used entry. Guarded by {@code this}.
+	 */
+	private final Map<Path, CachedSourceFile> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private long maxBytes;
+
+	private long maxFileBytes;
+
+	private long currentBytes;
+
+	private final BetterErrorPagesMetrics metrics;
+
+	SourceFileCache(long maxBytes) {
+		this(maxBytes, BetterErrorPagesMetrics.NOOP);
+	}
+
+	SourceFileCache(long maxBytes, BetterErrorPagesMetrics metrics) {
+		this.metrics = metrics;
+		this.setMaxBytes(maxBytes);
+	}
+
+	/**
+	 * @param fromLine zero based index of the first line to be included
+	 * @param toLine   zero based index of the line right after the last line to be included
+	 * @see SourceSnippetReader#read(Path, int, int)
+	 */
+	String snippet(Path path, int fromLine, int toLine) throws IOException {
+		final long start = System.nanoTime();
+
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		CachedSourceFile cachedSourceFile = this.getIfValid(path, attributes);
+		final boolean hit = cachedSourceFile != null;
+
+		if (!hit) {
+			cachedSourceFile = this.load(path, attributes);
+		}
+
+		final String snippet = this.snippet(path, cachedSourceFile, fromLine, toLine);
+
+		metrics.recordTime(BetterErrorPagesMetrics.SOURCE_READ, start, BetterErrorPagesMetrics.TYPE_TAG, ErrorContext.FileType.of(path).name(),
+						   BetterErrorPagesMetrics.CACHE_TAG, hit ? BetterErrorPagesMetrics.HIT : BetterErrorPagesMetrics.MISS);
+		return snippet;
+	}
+
+	/**
+	 * @return number of lines of the file, -1 if its lines are not indexed
+	 */
+	int lineCount(Path path) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		CachedSourceFile cachedSourceFile = this.getIfValid(path, attributes);
+
+		if (cachedSourceFile == null) {
+			cachedSourceFile = this.load(path, attributes);
+		}
+		return cachedSourceFile.lineIndex == null ? -1 : cachedSourceFile.lineIndex.getLineCount();
+	}
+
+	private String snippet(Path path, CachedSourceFile cachedSourceFile, int fromLine, int toLine) throws IOException {
+		final LineIndex lineIndex = cachedSourceFile.lineIndex;
+
+		if (lineIndex == null) {
+			// Not indexable (UTF-16), fall back to scanning from the beginning
+			return cachedSourceFile.content == null ? SourceSnippetReader.read(path, fromLine, toLine)
+					: SourceSnippetReader.read(newReader(cachedSourceFile.content, 0, cachedSourceFile.content.length), fromLine, toLine);
+		}
+
+		final int from = Math.min(Math.max(fromLine, 0), lineIndex.getLineCount());
+		final int to = Math.min(Math.max(toLine, from), lineIndex.getLineCount());
+
+		if (from == to) {
+			return "";
+		}
+
+		final long start = lineIndex.getLineStart(from);
+		final int length = (int) (lineIndex.getLineStart(to) - start);
+
+		// The range covers whole lines including their terminators, the reader only strips the terminators
+		final Reader reader = cachedSourceFile.content == null ? newReader(readRange(path, start, length), 0, length)
+				: newReader(cachedSourceFile.content, (int) start, length);
+
+		return SourceSnippetReader.read(reader, 0, to - from);
+	}
+
+	private static Reader newReader(byte[] content, int offset, int length) throws IOException {
+		return SourceSnippetReader.newReader(new ByteArrayInputStream(content, offset, length), SourceSnippetReader.DEFAULT_CHARSET);
+	}
+
+	private static byte[] readRange(Path path, long start, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			int read = 0;
+			// positional reads may return less than requested, hence the loop
+			while (buffer.hasRemaining() && read != -1) {
+				read = channel.read(buffer, start + buffer.position());
+			}
+		}
+		return buffer.position() == length ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	/**
+	 * @return null if the file is not cached or it is modified since it is cached
+	 */
+	@Nullable
+	private synchronized CachedSourceFile getIfValid(Path path, BasicFileAttributes attributes) {
+		final CachedSourceFile cachedSourceFile = entries.get(path);
+
+		if (cachedSourceFile != null && cachedSourceFile.isValid(attributes.lastModifiedTime().toMillis(), attributes.size())) {
+			hitCount.increment();
+			return cachedSourceFile;
+		}
+		return null;
+	}
+
+	private CachedSourceFile load(Path path, BasicFileAttributes attributes) throws IOException {
+
+		final long lastModified = attributes.lastModifiedTime().toMillis();
+		final long size = attributes.size();
+		final boolean tooBig;
+
+		synchronized (this) {
+			tooBig = size > maxFileBytes;
+		}
+
+		missCount.increment();
+
+		// Reading happens outside of the lock, concurrent misses of the same file may read it twice which is harmless.
+		// Attributes are the ones read before the content so a modification in between is caught on the next access.
+		final CachedSourceFile loaded;
+		if (tooBig) {
+			// Only the line index of big files is kept in memory, their snippets are read with positional reads
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				loaded = new CachedSourceFile(null, LineIndex.of(channel), lastModified, size);
+			}
+		}
+		else {
+			final byte[] content = Files.readAllBytes(path);
+			loaded = new CachedSourceFile(content, LineIndex.of(content), lastModified, size);
+		}
+
+		this.put(path, loaded);
+		return loaded;
+	}
+
+	private synchronized void put(Path path, CachedSourceFile cachedSourceFile) {
+		final CachedSourceFile previous = entries.put(path, cachedSourceFile);
+
+		if (previous != null) {
+			currentBytes -= previous.weight;
+		}
+		currentBytes += cachedSourceFile.weight;
+
+		this.evictIfNecessary();
+	}
+
+	private synchronized void remove(Path path) {
+		final CachedSourceFile removed = entries.remove(path);
+
+		if (removed != null) {
+			currentBytes -= removed.weight;
+		}
+	}
+
+	private void evictIfNecessary() {
+		final Iterator<CachedSourceFile> iterator = entries.values().iterator();
+
+		while (currentBytes > maxBytes && iterator.hasNext()) {
+			currentBytes -= iterator.next().weight;
+			iterator.remove();
+			evictionCount.increment();
+		}
+	}
+
+	synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		// A single file shouldn't be able to flush the whole cache
+		this.maxFileBytes = maxBytes / 4;
+		this.evictIfNecessary();
+
+		log.debug("Source file cache size is set to {} bytes", maxBytes);
+	}
+
+	synchronized void clear() {
+		entries.clear();
+		currentBytes = 0;
+	}
+
+	long getHitCount() {
+		return hitCount.sum();
+	}
+
+	long getMissCount() {
+		return missCount.sum();
+	}
+
+	long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	synchronized long getCurrentBytes() {
+		return currentBytes;
+	}
+
+	synchronized int getEntryCount() {
+		return entries.size();
+	}
+
+	private static final class CachedSourceFile {
+
+		/**
+		 * Null for files which are too big to be kept in memory
+		 */
+		@Nullable
+		private final byte[] content;
+
+		/**
+		 * Null for files which cannot be indexed, see {@link LineIndex}
+		 */
+		@Nullable
+		private final LineIndex lineIndex;
+
+		private final long lastModified;
+
+		private final long size;
+
+		private final long weight;
+
+		private CachedSourceFile(byte[] content, LineIndex lineIndex, long lastModified, long size) {
+			this.content = content;
+			this.lineIndex = lineIndex;
+			this.lastModified = lastModified;
+			this.size = size;
+			this.weight = (content == null ? 0 : content.length) + (lineIndex == null ? 0 : lineIndex.getSizeInBytes());
+		}
+
+		private boolean isValid(long lastModified, long size) {
+			return this.lastModified == lastModified && this.size == size;
+		}
+	}
+
+}
@@ -0,0 +1,223 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Resolves source files of classes and templates from their compiled counterparts on the classpath.</p>
+ *
+ * <p>Classes are first looked up in the {@link SourceRootLocator} if one is set, then their compiled location is mapped to a source location.
+ * Results of the latter, including the negative ones, are memoized per class loader. With devtools every restart comes with a new class loader
+ * so stale results are never used, the memoized results are also dropped whenever an application context is closed.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+class SourcePathResolver implements ApplicationListener<ContextClosedEvent> {
+
+	private static final String JAR_PROTOCOL = "jar";
+
+	private static final String FILE_PREFIX = "file:";
+
+	private static final String CLASS_SUFFIX = ".class";
+
+	private static final String TARGET_DIRECTORY = "/target";
+
+	private static final String JAR_CLASSES_SEPARATOR = "classes!";
+
+	private static final String MAIN_JAVA_DIRECTORY = "/src/main/java";
+
+	private static final String MAIN_RESOURCES_DIRECTORY = "/src/main/resources";
+
+	//@formatter:off
+	private static final List<SourceRootMapping> CLASS_MAPPINGS = Arrays.asList(
+			new SourceRootMapping("/target/classes/", MAIN_JAVA_DIRECTORY + "/"),
+			//this mapping is only necessary for non-jar executions as the tests only run in this way.
+			new SourceRootMapping("/target/test-classes/", "/src/test/java/"));
+	//@formatter:on
+
+	private final Map<ClassLoader, Map<String, Optional<Path>>> resolvedPaths = Collections.synchronizedMap(new WeakHashMap<>());
+
+	@Nullable
+	private final SourceRootLocator sourceRootLocator;
+
+	private final BetterErrorPagesMetrics metrics;
+
+	SourcePathResolver() {
+		this(null);
+	}
+
+	SourcePathResolver(@Nullable SourceRootLocator sourceRootLocator) {
+		this(sourceRootLocator, BetterErrorPagesMetrics.NOOP);
+	}
+
+	SourcePathResolver(@Nullable SourceRootLocator sourceRootLocator, BetterErrorPagesMetrics metrics) {
+		this.sourceRootLocator = sourceRootLocator;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @param fullyQualifiedClassName of the top level class, inner classes are resolved to the source of their top level class
+	 * @param fileName                source file name as reported in the trace, differs from class name for non-public classes
+	 */
+	Path resolveClass(String fullyQualifiedClassName, String fileName) throws IOException {
+		final long start = System.nanoTime();
+
+		if (sourceRootLocator != null) {
+			final int packageEnd = fullyQualifiedClassName.lastIndexOf('.');
+			final Path located = sourceRootLocator.locate(packageEnd < 0 ? "" : fullyQualifiedClassName.substring(0, packageEnd), fileName);
+			if (located != null) {
+				metrics.recordTime(BetterErrorPagesMetrics.SOURCE_RESOLVE, start, BetterErrorPagesMetrics.TYPE_TAG, ErrorContext.FileType.JAVA.name());
+				return located;
+			}
+		}
+
+		final String key = fullyQualifiedClassName + '#' + fileName;
+		final Path path = resolve(key, classLoader -> resolveClassPath(classLoader, fullyQualifiedClassName, fileName));
+		metrics.recordTime(BetterErrorPagesMetrics.SOURCE_RESOLVE, start, BetterErrorPagesMetrics.TYPE_TAG, ErrorContext.FileType.JAVA.name());
+		return path;
+	}
+
+	Path resolveTemplate(String templateFileName) throws IOException {
+		final long start = System.nanoTime();
+		final Path path = resolve(templateFileName, classLoader -> resolveTemplatePath(classLoader, templateFileName));
+		metrics.recordTime(BetterErrorPagesMetrics.SOURCE_RESOLVE, start, BetterErrorPagesMetrics.TYPE_TAG, ErrorContext.FileType.HTML.name());
+		return path;
+	}
+
+	@Override
+	public void onApplicationEvent(ContextClosedEvent event) {
+		this.clear();
+	}
+
+	void clear() {
+		resolvedPaths.clear();
+	}
+
+	private Path resolve(String key, Resolution resolution) throws IOException {
+		final ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		final Map<String, Optional<Path>> pathsOfClassLoader = resolvedPaths.computeIfAbsent(classLoader, k -> new ConcurrentHashMap<>());
+
+		final Optional<Path> path = pathsOfClassLoader.computeIfAbsent(key, k -> {
+			final Path resolved = resolution.resolve(classLoader);
+			if (log.isTraceEnabled()) {
+				log.trace("{} is resolved to {}", key, resolved);
+			}
+			return Optional.ofNullable(resolved);
+		});
+
+		return path.orElseThrow(() -> new IOException(key + " cannot be resolved to a source file."));
+	}
+
+	private static Path resolveClassPath(ClassLoader classLoader, String fullyQualifiedClassName, String fileName) {
+
+		// Looking the class file up as a resource doesn't load the class, nor initializes it
+		final URL classUrl = classLoader.getResource(fullyQualifiedClassName.replace('.', '/') + CLASS_SUFFIX);
+
+		if (classUrl == null) {
+			return null;
+		}
+
+		String classFullPath = classUrl.getPath();
+
+		if (classUrl.getProtocol().equals(JAR_PROTOCOL)) {
+			classFullPath = mapJarPath(classFullPath, MAIN_JAVA_DIRECTORY);
+		}
+		else {
+			for (SourceRootMapping mapping : CLASS_MAPPINGS) {
+				if (mapping.matches(classFullPath)) {
+					classFullPath = mapping.map(classFullPath);
+					break;
+				}
+			}
+		}
+
+		// Source file name differs from the class name for non-public classes
+		return Paths.get(classFullPath.substring(0, classFullPath.lastIndexOf('/') + 1) + fileName);
+	}
+
+	private static Path resolveTemplatePath(ClassLoader classLoader, String templateFileName) {
+
+		// Using classloader to load resource because it searches from the root of classpath even if the class is in some folder
+		final URL templateUrl = classLoader.getResource(templateFileName);
+
+		if (templateUrl == null) {
+			return null;
+		}
+
+		if (templateUrl.getProtocol().equals(JAR_PROTOCOL)) {
+			return Paths.get(mapJarPath(templateUrl.getPath(), MAIN_RESOURCES_DIRECTORY));
+		}
+		return Paths.get(templateUrl.getPath());
+	}
+
+	/**
+	 * Maps {@code file:/project/target/app.jar!/BOOT-INF/classes!/com/acme/Foo.class} to {@code /project/src/main/java/com/acme/Foo.class}
+	 */
+	private static String mapJarPath(String path, String sourceDirectory) {
+		final int start = path.indexOf(TARGET_DIRECTORY);
+		final int end = path.lastIndexOf(JAR_CLASSES_SEPARATOR);
+
+		final String mappedPath = start >= 0 && end > start ? path.substring(0, start) + sourceDirectory + path.substring(end + JAR_CLASSES_SEPARATOR.length()) : path;
+
+		// paths of files inside jars are reported with "file:" prefix.
+		return mappedPath.startsWith(FILE_PREFIX) ? mappedPath.substring(FILE_PREFIX.length()) : mappedPath;
+	}
+
+	@FunctionalInterface
+	private interface Resolution {
+
+		Path resolve(ClassLoader classLoader);
+	}
+
+	private static final class SourceRootMapping {
+
+		private final String outputDirectory;
+
+		private final String sourceDirectory;
+
+		private SourceRootMapping(String outputDirectory, String sourceDirectory) {
+			this.outputDirectory = outputDirectory;
+			this.sourceDirectory = sourceDirectory;
+		}
+
+		private boolean matches(String path) {
+			return path.contains(outputDirectory);
+		}
+
+		private String map(String path) {
+			final int index = path.indexOf(outputDirectory);
+			return path.substring(0, index) + sourceDirectory + path.substring(index + outputDirectory.length());
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.springframework.lang.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * <p>Locates source files of the classes which appear in stack traces.</p>
+ *
+ * <p>A bean of this type replaces the default implementation which indexes the source roots of the projects found on the classpath.
+ * When the locator cannot find a source file, Better Error Pages falls back to mapping the compiled class' location to a source location
+ * by Maven conventions.</p>
+ *
+ * <p>Implementations must be thread-safe and fast, this method is called for every application frame of every error.</p>
+ *
+ * Created on October, 2026
+ */
+@FunctionalInterface
+public interface SourceRootLocator {
+
+	/**
+	 * @param packageName like {@code com.acme.web}, empty for the default package
+	 * @param fileName    like {@code ProductController.java}
+	 * @return absolute path of the source file or null if it is not known
+	 */
+	@Nullable
+	Path locate(String packageName, String fileName);
+
+}
@@ -0,0 +1,156 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <p>Reads a window of lines from a source file without materializing the lines outside of the window.</p>
+ *
+ * <p>Lines are split the same way {@link java.io.BufferedReader#readLine()} splits them ({@code \n}, {@code \r} or {@code \r\n}) and
+ * the lines inside the window are joined with {@code \n}. Reading stops as soon as the last line of the window is consumed.</p>
+ *
+ * <p>A byte order mark at the beginning of the file is honored and never becomes a part of the snippet.</p>
+ *
+ * Created on October, 2026
+ */
+final class SourceSnippetReader {
+
+	static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final char BOM_CHARACTER = '\uFEFF';
+
+	private SourceSnippetReader() {
+		throw new UnsupportedOperationException("Cannot be instantiated!");
+	}
+
+	/**
+	 * @param fromLine zero based index of the first line to be included
+	 * @param toLine   zero based index of the line right after the last line to be included
+	 */
+	static String read(Path path, int fromLine, int toLine) throws IOException {
+		return read(path, DEFAULT_CHARSET, fromLine, toLine);
+	}
+
+	static String read(Path path, Charset charset, int fromLine, int toLine) throws IOException {
+		try (Reader reader = newReader(Files.newInputStream(path), charset)) {
+			return read(reader, fromLine, toLine);
+		}
+	}
+
+	static String read(Reader reader, int fromLine, int toLine) throws IOException {
+
+		final StringBuilder snippet = new StringBuilder(Math.max(toLine - fromLine, 0) * 80);
+		final char[] buffer = new char[BUFFER_SIZE];
+
+		int line = 0;
+		boolean lineStarted = false;
+		boolean previousWasCarriageReturn = false;
+		boolean atStart = true;
+		int read;
+
+		outer:
+		while (line < toLine && (read = reader.read(buffer)) != -1) {
+			int i = 0;
+
+			if (atStart && read > 0) {
+				atStart = false;
+				if (buffer[0] == BOM_CHARACTER) {
+					i = 1;
+				}
+			}
+
+			for (; i < read; i++) {
+				final char c = buffer[i];
+
+				if (previousWasCarriageReturn) {
+					previousWasCarriageReturn = false;
+					if (c == '\n') {
+						continue;
+					}
+				}
+
+				final boolean inWindow = line >= fromLine;
+
+				// a line exists as soon as it has a character or a terminator, that's when its separator is written
+				if (inWindow && !lineStarted) {
+					if (line > fromLine) {
+						snippet.append('\n');
+					}
+					lineStarted = true;
+				}
+
+				if (c == '\n' || c == '\r') {
+					previousWasCarriageReturn = c == '\r';
+					lineStarted = false;
+					if (++line >= toLine) {
+						break outer;
+					}
+				}
+				else if (inWindow) {
+					snippet.append(c);
+				}
+			}
+		}
+
+		return snippet.toString();
+	}
+
+	/**
+	 * Creates a lenient reader which detects UTF-8 and UTF-16 byte order marks and falls back to given charset when there is none.
+	 * Malformed input is replaced rather than failing the whole snippet.
+	 */
+	static Reader newReader(InputStream inputStream, Charset charset) throws IOException {
+		final InputStream bufferedInputStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+		final Charset detectedCharset = detectCharset(bufferedInputStream, charset);
+
+		final CharsetDecoder decoder = detectedCharset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		return new InputStreamReader(bufferedInputStream, decoder);
+	}
+
+	/**
+	 * UTF-8 BOM is left in the stream on purpose, it is decoded as {@link #BOM_CHARACTER} and skipped while reading.
+	 * UTF-16 BOMs are consumed by the UTF-16 decoder itself.
+	 */
+	private static Charset detectCharset(InputStream inputStream, Charset defaultCharset) throws IOException {
+		inputStream.mark(3);
+		final int first = inputStream.read();
+		final int second = inputStream.read();
+		final int third = inputStream.read();
+		inputStream.reset();
+
+		if (first == 0xEF && second == 0xBB && third == 0xBF) {
+			return StandardCharsets.UTF_8;
+		}
+		if ((first == 0xFE && second == 0xFF) || (first == 0xFF && second == 0xFE)) {
+			return StandardCharsets.UTF_16;
+		}
+		return defaultCharset;
+	}
+
+}
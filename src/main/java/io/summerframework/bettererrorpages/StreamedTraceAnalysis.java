@@ -0,0 +1,101 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thymeleaf.context.LazyContextVariable;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * <p>Trace analysis of an error page which is streamed, the analysis is done while the page is rendered rather than before it. Thymeleaf writes
+ * the page to the response as it goes, so when the template first refers to the error contexts, the head, the status and the message of the page
+ * are already written. They are flushed to the browser before the trace is analyzed and the snippets are loaded, then the rest of the page
+ * follows.</p>
+ *
+ * <p>Instances of this class are not thread-safe, they live as long as the rendering of a page.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+final class StreamedTraceAnalysis {
+
+	private final HttpServletResponse response;
+
+	private final Supplier<TraceAnalysis> analysis;
+
+	private TraceAnalysis traceAnalysis;
+
+	/**
+	 * @param analysis called once, when the template first refers to the error contexts or the styled trace
+	 */
+	StreamedTraceAnalysis(HttpServletResponse response, Supplier<TraceAnalysis> analysis) {
+		this.response = response;
+		this.analysis = analysis;
+	}
+
+	LazyContextVariable<List<ErrorContext>> getErrorContexts() {
+		return new StreamedVariable<List<ErrorContext>>() {
+
+			@Override
+			protected List<ErrorContext> loadValue() {
+				return get().getErrorContexts();
+			}
+		};
+	}
+
+	LazyContextVariable<String> getStyledTrace() {
+		return new StreamedVariable<String>() {
+
+			@Override
+			protected String loadValue() {
+				return get().getStyledTrace();
+			}
+		};
+	}
+
+	private TraceAnalysis get() {
+		if (traceAnalysis == null) {
+			this.flush();
+			traceAnalysis = analysis.get();
+		}
+		return traceAnalysis;
+	}
+
+	/**
+	 * Only flushes what is written to the response so far, nothing is written when Thymeleaf is configured not to produce partial output
+	 */
+	private void flush() {
+		try {
+			response.flushBuffer();
+		}
+		catch (IOException e) {
+			// The browser is gone, the rest of the page fails to be written anyway
+			log.debug("Cannot flush the error page", e);
+		}
+	}
+
+	private abstract static class StreamedVariable<T> extends LazyContextVariable<T> {
+
+		/**
+		 * Dumped as its value in the template context of the error page
+		 */
+		@Override
+		public String toString() {
+			return String.valueOf(this.getValue());
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * <p>Error contexts of a trace and the trace decorated for the error page, both computed in a single pass over the trace.</p>
+ *
+ * Created on October, 2026
+ */
+@Getter
+final class TraceAnalysis {
+
+	private final List<ErrorContext> errorContexts;
+
+	/**
+	 * HTML escaped trace whose lines having an error context are wrapped with a span referring to the context
+	 */
+	@Nullable
+	private final String styledTrace;
+
+	TraceAnalysis(List<ErrorContext> errorContexts, @Nullable String styledTrace) {
+		this.errorContexts = errorContexts;
+		this.styledTrace = styledTrace;
+	}
+
+}
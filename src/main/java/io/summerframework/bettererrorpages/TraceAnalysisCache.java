@@ -0,0 +1,256 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Remembers the error contexts of the traces so that repeats of an error don't resolve and read their source files again.</p>
+ *
+ * <p>Error contexts of a trace only depend on its application frames and its template marker, so traces are keyed by them, see {@link #keyOf(List)}.
+ * Repeats of an error with different messages share the same error contexts. The styled trace of the last trace of a key is kept too, it is reused
+ * when the same trace is analyzed again.</p>
+ *
+ * <p>An entry is valid as long as the last modified times of its source files don't change. Error contexts whose source files are not found are not
+ * cached, as the files may be found later. Error contexts whose snippets are not {@link SourceCodeLoader#prefetch(List) prefetched} are cached
+ * without their files, their snippets are read when they are fetched.</p>
+ *
+ * <p>The cache is bounded by the number of entries and the least recently used entries are evicted first.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+@Slf4j
+class TraceAnalysisCache {
+
+	static final int DEFAULT_MAX_ENTRIES = 128;
+
+	/**
+	 * Access ordered so iteration starts from the least recently used entry. Guarded by {@code this}.
+	 */
+	private final Map<String, CachedErrorContexts> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+	private final int maxEntries;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	TraceAnalysisCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @return application frames and the first template marker of the trace, which are all that error contexts are built from
+	 */
+	static String keyOf(List<TraceFrame> frames) {
+		final StringBuilder key = new StringBuilder(256);
+		boolean hasTemplateMarker = false;
+
+		for (TraceFrame frame : frames) {
+			if (frame.isApplicationFrame() || (!hasTemplateMarker && frame.isTemplateMarker())) {
+				hasTemplateMarker |= frame.isTemplateMarker();
+				key.append(frame.getMatchedContent()).append('\n');
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * @return null if there is no valid entry for the key, then the caller builds the error contexts and {@link #put(String, String, TraceAnalysis)
+	 * puts} them
+	 */
+	@Nullable
+	List<ErrorContext> getErrorContexts(String key) {
+		final CachedErrorContexts cached;
+		synchronized (this) {
+			cached = entries.get(key);
+		}
+
+		// Checking the files happens outside of the lock
+		if (cached == null || !cached.isValid()) {
+			missCount.increment();
+			return null;
+		}
+
+		hitCount.increment();
+		return cached.errorContexts;
+	}
+
+	/**
+	 * @return styled trace of the last analysis of the trace having the key, null if the last analysis is of another trace
+	 */
+	@Nullable
+	String getStyledTrace(String key, String trace) {
+		final CachedErrorContexts cached;
+		synchronized (this) {
+			cached = entries.get(key);
+		}
+
+		final StyledTrace lastStyledTrace = cached == null ? null : cached.lastStyledTrace;
+		return lastStyledTrace != null && lastStyledTrace.trace.equals(trace) ? lastStyledTrace.styledTrace : null;
+	}
+
+	/**
+	 * Last modified times of the source files are read now, a modification during the analysis is caught when the file is modified again
+	 */
+	void put(String key, String trace, TraceAnalysis traceAnalysis) {
+		final CachedErrorContexts existing;
+		synchronized (this) {
+			existing = entries.get(key);
+		}
+
+		// Only the styled trace is new
+		if (existing != null && existing.errorContexts == traceAnalysis.getErrorContexts()) {
+			existing.lastStyledTrace = new StyledTrace(trace, traceAnalysis.getStyledTrace());
+			return;
+		}
+
+		final List<ErrorContext> errorContexts = traceAnalysis.getErrorContexts();
+		final Path[] sourceFiles = new Path[errorContexts.size()];
+		final long[] lastModifiedTimes = new long[errorContexts.size()];
+
+		for (int i = 0; i < errorContexts.size(); i++) {
+			final ErrorContext errorContext = errorContexts.get(i);
+
+			// Snippets which are not prefetched are fetched by their tokens, always from the current file
+			if (errorContext.getSourceCode() == null) {
+				continue;
+			}
+
+			final String sourceCodePath = errorContext.getSourceCodePath();
+			if (sourceCodePath == null) {
+				return;
+			}
+
+			sourceFiles[i] = Paths.get(sourceCodePath);
+			try {
+				lastModifiedTimes[i] = Files.getLastModifiedTime(sourceFiles[i]).toMillis();
+			}
+			catch (IOException e) {
+				return;
+			}
+		}
+
+		final CachedErrorContexts cached = new CachedErrorContexts(Collections.unmodifiableList(errorContexts), sourceFiles, lastModifiedTimes);
+		cached.lastStyledTrace = new StyledTrace(trace, traceAnalysis.getStyledTrace());
+
+		synchronized (this) {
+			entries.put(key, cached);
+
+			final Iterator<CachedErrorContexts> iterator = entries.values().iterator();
+			while (entries.size() > maxEntries && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+				evictionCount.increment();
+			}
+		}
+	}
+
+	synchronized void clear() {
+		entries.clear();
+	}
+
+	long getHitCount() {
+		return hitCount.sum();
+	}
+
+	long getMissCount() {
+		return missCount.sum();
+	}
+
+	long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * @return ratio of the analyses whose error contexts are found in the cache, zero if nothing is analyzed yet
+	 */
+	double getHitRatio() {
+		final long hits = hitCount.sum();
+		final long total = hits + missCount.sum();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	synchronized int getEntryCount() {
+		return entries.size();
+	}
+
+	private static final class CachedErrorContexts {
+
+		private final List<ErrorContext> errorContexts;
+
+		/**
+		 * Null for the error contexts whose snippets are not prefetched
+		 */
+		private final Path[] sourceFiles;
+
+		private final long[] lastModifiedTimes;
+
+		@Nullable
+		private volatile StyledTrace lastStyledTrace;
+
+		private CachedErrorContexts(List<ErrorContext> errorContexts, Path[] sourceFiles, long[] lastModifiedTimes) {
+			this.errorContexts = errorContexts;
+			this.sourceFiles = sourceFiles;
+			this.lastModifiedTimes = lastModifiedTimes;
+		}
+
+		private boolean isValid() {
+			for (int i = 0; i < sourceFiles.length; i++) {
+				if (sourceFiles[i] == null) {
+					continue;
+				}
+
+				try {
+					if (Files.getLastModifiedTime(sourceFiles[i]).toMillis() != lastModifiedTimes[i]) {
+						log.debug("Error contexts of {} are stale", sourceFiles[i]);
+						return false;
+					}
+				}
+				catch (IOException e) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static final class StyledTrace {
+
+		private final String trace;
+
+		@Nullable
+		private final String styledTrace;
+
+		private StyledTrace(String trace, @Nullable String styledTrace) {
+			this.trace = trace;
+			this.styledTrace = styledTrace;
+		}
+	}
+}
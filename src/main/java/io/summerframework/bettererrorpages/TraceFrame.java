@@ -0,0 +1,150 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+/**
+ * <p>A single line of an exception trace as recognized by {@link TraceTokenizer}.</p>
+ *
+ * <p>Lines referring to source code, either a frame of the application's package or a Thymeleaf template marker, have a {@link #getFileType()}
+ * and the related fields set. Other fields are null for the lines not referring to source code.</p>
+ *
+ * <p>Instances of this class are immutable.</p>
+ *
+ * Created on October, 2026
+ */
+@Getter
+final class TraceFrame {
+
+	enum Type {
+		/**
+		 * {@code at com.acme.Foo.bar(Foo.java:42)}
+		 */
+		STACK_FRAME,
+		/**
+		 * {@code Caused by: java.lang.RuntimeException: message}
+		 */
+		CAUSED_BY,
+		/**
+		 * {@code ... 55 more}
+		 */
+		ELIDED_FRAMES,
+		/**
+		 * Exception messages and everything else
+		 */
+		MESSAGE
+	}
+
+	private final Type type;
+
+	@Getter(AccessLevel.NONE)
+	private final String trace;
+
+	/**
+	 * Index of the first character of the line in the trace
+	 */
+	private final int lineStart;
+
+	/**
+	 * Index of the line terminator in the trace, or the trace length for the last line
+	 */
+	private final int lineEnd;
+
+	/**
+	 * JAVA for application frames, HTML for template markers, null otherwise
+	 */
+	@Nullable
+	private final ErrorContext.FileType fileType;
+
+	/**
+	 * Part of the line referring to source code like {@code at com.acme.Foo.bar(Foo.java:42)} or
+	 * {@code (template: "products/list" - line 3, col 5)}
+	 */
+	@Nullable
+	private final String matchedContent;
+
+	/**
+	 * Fully qualified name of the top level class like {@code com.acme.Foo}, null for template markers
+	 */
+	@Nullable
+	private final String fullyQualifiedClassName;
+
+	@Nullable
+	private final String packageName;
+
+	@Nullable
+	private final String className;
+
+	/**
+	 * Source file name like {@code Foo.java} for application frames and template name like {@code products/list} for template markers
+	 */
+	@Nullable
+	private final String fileName;
+
+	@Nullable
+	private final String lineNumber;
+
+	private TraceFrame(Type type, String trace, int lineStart, int lineEnd, @Nullable ErrorContext.FileType fileType, @Nullable String matchedContent,
+			@Nullable String fullyQualifiedClassName, @Nullable String packageName, @Nullable String className, @Nullable String fileName,
+			@Nullable String lineNumber) {
+		this.type = type;
+		this.trace = trace;
+		this.lineStart = lineStart;
+		this.lineEnd = lineEnd;
+		this.fileType = fileType;
+		this.matchedContent = matchedContent;
+		this.fullyQualifiedClassName = fullyQualifiedClassName;
+		this.packageName = packageName;
+		this.className = className;
+		this.fileName = fileName;
+		this.lineNumber = lineNumber;
+	}
+
+	static TraceFrame of(Type type, String trace, int lineStart, int lineEnd) {
+		return new TraceFrame(type, trace, lineStart, lineEnd, null, null, null, null, null, null, null);
+	}
+
+	static TraceFrame applicationFrame(Type type, String trace, int lineStart, int lineEnd, String matchedContent, String fullyQualifiedClassName,
+			String packageName, String className, String fileName, String lineNumber) {
+		return new TraceFrame(type, trace, lineStart, lineEnd, ErrorContext.FileType.JAVA, matchedContent, fullyQualifiedClassName, packageName,
+							  className, fileName, lineNumber);
+	}
+
+	static TraceFrame templateMarker(Type type, String trace, int lineStart, int lineEnd, String matchedContent, String templateName,
+			String lineNumber) {
+		return new TraceFrame(type, trace, lineStart, lineEnd, ErrorContext.FileType.HTML, matchedContent, null, null, null, templateName, lineNumber);
+	}
+
+	/**
+	 * @return the whole line, created on each call as most of the lines are never needed as a string
+	 */
+	String getLine() {
+		return trace.substring(lineStart, lineEnd);
+	}
+
+	boolean isEmpty() {
+		return lineStart == lineEnd;
+	}
+
+	boolean isApplicationFrame() {
+		return fileType == ErrorContext.FileType.JAVA;
+	}
+
+	boolean isTemplateMarker() {
+		return fileType == ErrorContext.FileType.HTML;
+	}
+
+}
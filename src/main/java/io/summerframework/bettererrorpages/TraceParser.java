@@ -13,11 +13,15 @@
 package io.summerframework.bettererrorpages;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * <p>Instances of this class are thread-safe.</p>
@@ -29,97 +33,194 @@ import java.util.regex.Pattern;
 @Slf4j
 class TraceParser {
 
-	private final Pattern classNameRegexPattern;
+	private static final int FINGERPRINT_FRAME_COUNT = 3;
+
+	private final String packageName;
+
+	private final TraceTokenizer traceTokenizer;
+
+	private final SourceCodeLoader sourceCodeLoader;
+
+	private final BetterErrorPagesMetrics metrics;
+
+	TraceParser(String packageName, SourceCodeLoader sourceCodeLoader) {
+		this(packageName, sourceCodeLoader, BetterErrorPagesMetrics.NOOP);
+	}
+
+	TraceParser(String packageName, SourceCodeLoader sourceCodeLoader, BetterErrorPagesMetrics metrics) {
+		this.packageName = packageName;
+		this.sourceCodeLoader = sourceCodeLoader;
+		this.metrics = metrics;
+		traceTokenizer = new TraceTokenizer(packageName);
+	}
 
 	/**
-	 * <p>{@code (?:.+\[)} and {@code *\} parts are to match optional brackets ({@literal [} {@literal ]})</p>
-	 * <br>
-	 * <p>Template names are sometimes in form <br>
-	 *  {@code (template: "class path resource [templates/index.html]" - line 2, col 100)} <br>and sometimes<br>
-	 * 	{@code (template: "products/syntaxError" - line 3, col 5)}</p>
+	 * <p>Walks the frames of the error, its suppressed exceptions and causes in the same order {@link Throwable#printStackTrace()} prints them,
+	 * so the result is the same with {@link #getErrorContexts(String)} for the printed trace without formatting and parsing it.</p>
 	 */
-	private final Pattern templateNameRegexPattern = Pattern.compile("\\(template: \"(?:.+\\[){0,1}(.+?)]*\" - line (\\d+), col .+\\)");
+	List<ErrorContext> getErrorContexts(Throwable error) {
 
-	TraceParser(String packageName) {
-		classNameRegexPattern = Pattern.compile("at ((" + packageName + "[a-z0-9\\.]*)\\.([A-Z]\\w*)).*\\((.+):(\\d+)\\)");
+		final ErrorContextCollector collector = new ErrorContextCollector();
+		collector.collect(error);
+
+		return this.withTemplateErrorContext(collector.errorContexts, collector.templateMarker);
 	}
 
 	List<ErrorContext> getErrorContexts(String trace) {
+		return this.getErrorContexts(this.tokenize(trace));
+	}
+
+	/**
+	 * @param frames of a trace tokenized by {@link #tokenize(String)}
+	 */
+	List<ErrorContext> getErrorContexts(List<TraceFrame> frames) {
 
-		// Checking for class file info in trace
-		final Matcher matcher = this.parseTraceForClass(trace);
 		final List<ErrorContext> errorContexts = new ArrayList<>();
+		TraceFrame templateMarker = null;
+
+		for (TraceFrame frame : frames) {
+
+			// Checking for class file info in trace
+			if (frame.isApplicationFrame()) {
+				final ErrorContext errorContext = ErrorContext.fromApplicationFrame(frame);
+
+				if (!errorContexts.contains(errorContext)) {
+					errorContexts.add(errorContext);
+				}
+			}
+			// Checking for template file info in trace
+			//No need to use the rest as they will yield the same file name for template errors
+			else if (templateMarker == null && frame.isTemplateMarker()) {
+				templateMarker = frame;
+			}
+		}
+
+		return this.withTemplateErrorContext(errorContexts, templateMarker);
+	}
+
+	List<TraceFrame> tokenize(String trace) {
+		final long start = System.nanoTime();
+		final List<TraceFrame> frames = traceTokenizer.tokenize(trace);
+		metrics.recordTime(BetterErrorPagesMetrics.TRACE_PARSE, start);
+		return frames;
+	}
+
+	/**
+	 * <p>Repeats of an error have the same fingerprint even if their messages differ. The fingerprint is made of the type of the error and its first
+	 * {@value #FINGERPRINT_FRAME_COUNT} application frames, or its first frames if it has no application frames.</p>
+	 *
+	 * @return hex of the MD5 digest of the fingerprint
+	 */
+	String getFingerprint(String trace) {
+		final List<TraceFrame> frames = this.tokenize(trace);
+		final StringBuilder fingerprint = new StringBuilder(FINGERPRINT_FRAME_COUNT * 100);
+
+		// Type of the error is the first line before its message
+		for (TraceFrame frame : frames) {
+			if (!frame.isEmpty()) {
+				final String line = frame.getLine();
+				final int messageStart = line.indexOf(':');
+				fingerprint.append(messageStart < 0 ? line.trim() : line.substring(0, messageStart).trim());
+				break;
+			}
+		}
+
+		int frameCount = 0;
+		for (int i = 0; i < frames.size() && frameCount < FINGERPRINT_FRAME_COUNT; i++) {
+			if (frames.get(i).isApplicationFrame()) {
+				fingerprint.append('\n').append(frames.get(i).getMatchedContent());
+				frameCount++;
+			}
+		}
 
-		while (matcher.find()) {
+		for (int i = 0; i < frames.size() && frameCount == 0; i++) {
+			if (frames.get(i).getType() == TraceFrame.Type.STACK_FRAME) {
+				// Only the first frames, as many as the application frames would be
+				for (int j = i; j < frames.size() && j < i + FINGERPRINT_FRAME_COUNT; j++) {
+					fingerprint.append('\n').append(frames.get(j).getLine().trim());
+				}
+				break;
+			}
+		}
 
-			final ErrorContext errorContext = ErrorContext.extractFromClassMatcher(matcher);
+		return DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+	}
 
-			if(!errorContexts.contains(errorContext)) {
-				errorContexts.add(errorContext);
+	private TraceFrame findTemplateMarker(String message) {
+		for (TraceFrame frame : traceTokenizer.tokenize(message)) {
+			if (frame.isTemplateMarker()) {
+				return frame;
 			}
 		}
+		return null;
+	}
 
-		// Checking for template file info in trace
-		final Matcher matcherForTemplateMeta = this.parseTraceForTemplate(trace);
+	private List<ErrorContext> withTemplateErrorContext(List<ErrorContext> errorContexts, TraceFrame templateMarker) {
 
-		if (matcherForTemplateMeta.find()) {
+		// Template context comes after the class contexts
+		if (templateMarker != null) {
 
 			if(log.isDebugEnabled()) {
 				log.debug("ErrorContext  for a template exception is found.");
 			}
 
-			errorContexts.add(ErrorContext.extractFromTemplateMatcher(matcherForTemplateMeta));
-			//No need to parse the rest as they will yield the same file name for template errors
-			//Hence we are not looping for the remaining findings of 'matcherForTemplateMeta'
+			errorContexts.add(ErrorContext.fromTemplateMarker(templateMarker));
 		}
 
+		sourceCodeLoader.prefetch(errorContexts);
+
 		if(log.isTraceEnabled()) {
 			log.trace("Returning ErrorContexts size {}", errorContexts.size());
 		}
 		return errorContexts;
 	}
 
-	String getMatchedContent(String traceLine) {
-		final Matcher classMatcher = classNameRegexPattern.matcher(traceLine);
-		if(classMatcher.find()) {
-			return classMatcher.group(0);
-		}
+	private final class ErrorContextCollector {
 
-		final Matcher templateMatcher = templateNameRegexPattern.matcher(traceLine);
-		if(templateMatcher.find()) {
-			return templateMatcher.group(0);
-		}
+		private final List<ErrorContext> errorContexts = new ArrayList<>();
 
-		return null;
-	}
+		private final Set<Throwable> visitedErrors = Collections.newSetFromMap(new IdentityHashMap<>());
 
-	/**
-	 * <p>Parses lines in format {@code at <packageName>.SomeClass.someMethod(SomeClass.java:NN)}</p>
-	 *
-	 * <pre>
-	 * matcher.group(0): whole line
-	 * matcher.group(1): fully qualified class name
-	 * matcher.group(2): package name
-	 * matcher.group(3): class name
-	 * matcher.group(4): file name
-	 * matcher.group(5): line number
-	 * </pre>
-	 */
-	private Matcher parseTraceForClass(String trace) {
-		return classNameRegexPattern.matcher(trace);
-	}
+		private final Set<StackTraceElement> visitedElements = new HashSet<>();
 
-	/**
-	 * <p>Parses lines in template exception trace with template name.</p>
-	 *
-	 * <pre>
-	 * matcher.group(0): whole line
-	 * matcher.group(1): template path
-	 * matcher.group(2): line number
-	 * </pre>
-	 */
-	private Matcher parseTraceForTemplate(String trace) {
-		return templateNameRegexPattern.matcher(trace);
+		/**
+		 * First template marker in the messages of the errors, i.e. Thymeleaf's TemplateProcessingException
+		 */
+		private TraceFrame templateMarker;
+
+		private void collect(Throwable error) {
+
+			// Guards against circular references like printStackTrace does
+			if (!visitedErrors.add(error)) {
+				return;
+			}
+
+			if (templateMarker == null) {
+				templateMarker = findTemplateMarker(String.valueOf(error));
+			}
+
+			for (StackTraceElement element : error.getStackTrace()) {
+
+				// Frames in common with the enclosing trace are visited already, printStackTrace prints them as "... N more"
+				if (element.getClassName().startsWith(packageName) && element.getFileName() != null && element.getLineNumber() >= 0
+						&& visitedElements.add(element)) {
+
+					final ErrorContext errorContext = ErrorContext.fromStackTraceElement(element);
+
+					if (!errorContexts.contains(errorContext)) {
+						errorContexts.add(errorContext);
+					}
+				}
+			}
+
+			for (Throwable suppressed : error.getSuppressed()) {
+				this.collect(suppressed);
+			}
+
+			if (error.getCause() != null) {
+				this.collect(error.getCause());
+			}
+		}
 	}
 
 }
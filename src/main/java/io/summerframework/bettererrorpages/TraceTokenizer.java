@@ -0,0 +1,285 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Splits an exception trace into {@link TraceFrame}s walking the trace only once, without regular expressions.</p>
+ *
+ * <p>Application frames are recognized the same way the former {@code at ((<packageName>[a-z0-9\.]*)\.([A-Z]\w*)).*\((.+):(\d+)\)}
+ * pattern did: {@code at <packageName>} followed by a lowercase package, an uppercase class name and the last {@code (File.java:NN)}
+ * on the line. Thymeleaf template markers are recognized the same way the former
+ * {@code \(template: "(?:.+\[){0,1}(.+?)]*" - line (\d+), col .+\)} pattern did.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+final class TraceTokenizer {
+
+	private static final String FRAME_PREFIX = "at ";
+
+	private static final String CAUSED_BY_PREFIX = "Caused by: ";
+
+	private static final String ELIDED_FRAMES_PREFIX = "... ";
+
+	private static final String ELIDED_FRAMES_SUFFIX = " more";
+
+	private static final String TEMPLATE_MARKER = "(template: \"";
+
+	private static final String TEMPLATE_LINE_MARKER = "\" - line ";
+
+	private static final String TEMPLATE_COLUMN_MARKER = ", col ";
+
+	/**
+	 * {@code at <packageName>}
+	 */
+	private final String applicationFramePrefix;
+
+	TraceTokenizer(String packageName) {
+		this.applicationFramePrefix = FRAME_PREFIX + packageName;
+	}
+
+	List<TraceFrame> tokenize(String trace) {
+		final List<TraceFrame> frames = new ArrayList<>();
+		final int length = trace.length();
+
+		// Next occurrences of the markers are searched only once for the whole trace, most of the lines have none of them
+		int nextFrameStart = trace.indexOf(applicationFramePrefix);
+		int nextTemplateMarkerStart = trace.indexOf(TEMPLATE_MARKER);
+
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = trace.indexOf('\n', lineStart);
+			if (lineEnd < 0) {
+				lineEnd = length;
+			}
+
+			if (nextFrameStart >= 0 && nextFrameStart < lineStart) {
+				nextFrameStart = trace.indexOf(applicationFramePrefix, lineStart);
+			}
+			if (nextTemplateMarkerStart >= 0 && nextTemplateMarkerStart < lineStart) {
+				nextTemplateMarkerStart = trace.indexOf(TEMPLATE_MARKER, lineStart);
+			}
+
+			frames.add(tokenizeLine(trace, lineStart, lineEnd, nextFrameStart, nextTemplateMarkerStart));
+			lineStart = lineEnd + 1;
+		}
+
+		return frames;
+	}
+
+	/**
+	 * @param line a single line of a trace
+	 */
+	TraceFrame tokenizeLine(String line) {
+		return tokenizeLine(line, 0, line.length(), line.indexOf(applicationFramePrefix), line.indexOf(TEMPLATE_MARKER));
+	}
+
+	/**
+	 * @param frameStart          first index of {@code at <packageName>} at or after the line start, negative if there is none
+	 * @param templateMarkerStart first index of {@code (template: "} at or after the line start, negative if there is none
+	 */
+	private TraceFrame tokenizeLine(String trace, int lineStart, int lineEnd, int frameStart, int templateMarkerStart) {
+		final TraceFrame.Type type = typeOf(trace, lineStart, lineEnd);
+
+		for (int i = frameStart; i >= 0 && i < lineEnd; i = indexOf(trace, applicationFramePrefix, i + 1, lineEnd)) {
+			final TraceFrame frame = matchApplicationFrame(type, trace, lineStart, lineEnd, i);
+			if (frame != null) {
+				return frame;
+			}
+		}
+
+		for (int i = templateMarkerStart; i >= 0 && i < lineEnd; i = indexOf(trace, TEMPLATE_MARKER, i + 1, lineEnd)) {
+			final TraceFrame frame = matchTemplateMarker(type, trace, lineStart, lineEnd, i);
+			if (frame != null) {
+				return frame;
+			}
+		}
+
+		return TraceFrame.of(type, trace, lineStart, lineEnd);
+	}
+
+	private static TraceFrame.Type typeOf(String trace, int lineStart, int lineEnd) {
+		int start = lineStart;
+		while (start < lineEnd && (trace.charAt(start) == '\t' || trace.charAt(start) == ' ')) {
+			start++;
+		}
+
+		int end = lineEnd;
+		while (end > start && Character.isWhitespace(trace.charAt(end - 1))) {
+			end--;
+		}
+
+		if (trace.startsWith(FRAME_PREFIX, start)) {
+			return TraceFrame.Type.STACK_FRAME;
+		}
+		if (trace.startsWith(CAUSED_BY_PREFIX, start)) {
+			return TraceFrame.Type.CAUSED_BY;
+		}
+		if (trace.startsWith(ELIDED_FRAMES_PREFIX, start) && end - start > ELIDED_FRAMES_PREFIX.length() + ELIDED_FRAMES_SUFFIX.length()
+				&& trace.startsWith(ELIDED_FRAMES_SUFFIX, end - ELIDED_FRAMES_SUFFIX.length())) {
+			return TraceFrame.Type.ELIDED_FRAMES;
+		}
+		return TraceFrame.Type.MESSAGE;
+	}
+
+	/**
+	 * @param frameStart index of {@code at <packageName>}
+	 */
+	@Nullable
+	private TraceFrame matchApplicationFrame(TraceFrame.Type type, String trace, int lineStart, int lineEnd, int frameStart) {
+		final int packageStart = frameStart + FRAME_PREFIX.length();
+		final int packageRestStart = frameStart + applicationFramePrefix.length();
+
+		// Rest of the package is lowercase, the class name is the first segment starting with an uppercase letter
+		int classStart = packageRestStart;
+		while (classStart < lineEnd && isPackageCharacter(trace.charAt(classStart))) {
+			classStart++;
+		}
+
+		if (classStart == lineEnd || classStart - 1 < packageRestStart || trace.charAt(classStart - 1) != '.' || !isUpperCase(trace.charAt(classStart))) {
+			return null;
+		}
+
+		int classEnd = classStart + 1;
+		while (classEnd < lineEnd && isWordCharacter(trace.charAt(classEnd))) {
+			classEnd++;
+		}
+
+		// The last ":NN)" on the line ends the frame
+		int close = -1;
+		int colon = -1;
+		for (int i = lineEnd - 1; i > classEnd && colon < 0; i--) {
+			if (trace.charAt(i) == ')') {
+				int digitsStart = i;
+				while (digitsStart > classEnd && isDigit(trace.charAt(digitsStart - 1))) {
+					digitsStart--;
+				}
+				if (digitsStart < i && digitsStart - 1 > classEnd && trace.charAt(digitsStart - 1) == ':') {
+					close = i;
+					colon = digitsStart - 1;
+				}
+			}
+		}
+
+		if (colon < 0) {
+			return null;
+		}
+
+		// The last "(" which leaves at least one character for the file name
+		int open = -1;
+		for (int i = colon - 2; i >= classEnd; i--) {
+			if (trace.charAt(i) == '(') {
+				open = i;
+				break;
+			}
+		}
+
+		if (open < 0) {
+			return null;
+		}
+
+		//@formatter:off
+		return TraceFrame.applicationFrame(type, trace, lineStart, lineEnd,
+										   trace.substring(frameStart, close + 1),
+										   trace.substring(packageStart, classEnd),
+										   trace.substring(packageStart, classStart - 1),
+										   trace.substring(classStart, classEnd),
+										   trace.substring(open + 1, colon),
+										   trace.substring(colon + 1, close));
+		//@formatter:on
+	}
+
+	/**
+	 * <p>Template names are sometimes in form <br>
+	 * {@code (template: "class path resource [templates/index.html]" - line 2, col 100)} <br>and sometimes<br>
+	 * {@code (template: "products/syntaxError" - line 3, col 5)}</p>
+	 *
+	 * @param markerStart index of {@code (template: "}
+	 */
+	@Nullable
+	private static TraceFrame matchTemplateMarker(TraceFrame.Type type, String trace, int lineStart, int lineEnd, int markerStart) {
+		final int nameStart = markerStart + TEMPLATE_MARKER.length();
+		final int close = trace.lastIndexOf(')', lineEnd - 1);
+
+		for (int nameEnd = indexOf(trace, TEMPLATE_LINE_MARKER, nameStart + 1, lineEnd); nameEnd >= 0;
+			 nameEnd = indexOf(trace, TEMPLATE_LINE_MARKER, nameEnd + 1, lineEnd)) {
+
+			final int digitsStart = nameEnd + TEMPLATE_LINE_MARKER.length();
+			int digitsEnd = digitsStart;
+			while (digitsEnd < lineEnd && isDigit(trace.charAt(digitsEnd))) {
+				digitsEnd++;
+			}
+
+			// at least a character between ", col " and ")"
+			if (digitsEnd == digitsStart || !trace.startsWith(TEMPLATE_COLUMN_MARKER, digitsEnd) || close <= digitsEnd + TEMPLATE_COLUMN_MARKER.length()) {
+				continue;
+			}
+
+			// Strips "class path resource [" and "]"
+			int templateNameStart = nameStart;
+			final int bracket = trace.lastIndexOf('[', nameEnd - 1);
+			if (bracket > nameStart && bracket + 1 < nameEnd) {
+				templateNameStart = bracket + 1;
+			}
+
+			int templateNameEnd = nameEnd;
+			while (templateNameEnd - 1 > templateNameStart && trace.charAt(templateNameEnd - 1) == ']') {
+				templateNameEnd--;
+			}
+
+			//@formatter:off
+			return TraceFrame.templateMarker(type, trace, lineStart, lineEnd,
+											 trace.substring(markerStart, close + 1),
+											 trace.substring(templateNameStart, templateNameEnd),
+											 trace.substring(digitsStart, digitsEnd));
+			//@formatter:on
+		}
+
+		return null;
+	}
+
+	/**
+	 * {@link String#indexOf(String, int)} which doesn't search beyond the line
+	 */
+	private static int indexOf(String trace, String target, int fromIndex, int lineEnd) {
+		for (int i = fromIndex; i <= lineEnd - target.length(); i++) {
+			if (trace.charAt(i) == target.charAt(0) && trace.startsWith(target, i)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isPackageCharacter(char c) {
+		return (c >= 'a' && c <= 'z') || isDigit(c) || c == '.';
+	}
+
+	private static boolean isWordCharacter(char c) {
+		return (c >= 'a' && c <= 'z') || isUpperCase(c) || isDigit(c) || c == '_';
+	}
+
+	private static boolean isUpperCase(char c) {
+		return c >= 'A' && c <= 'Z';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+}
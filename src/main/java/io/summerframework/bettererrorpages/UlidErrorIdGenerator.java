@@ -0,0 +1,87 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Generates 26 characters long ids like ULIDs, in Crockford's base 32 so that ids sort in the order they are generated.</p>
+ *
+ * <p>An id is made of 128 bits:</p>
+ * <pre>
+ * | 48 bits epoch millis | 16 bits counter | 64 bits random |
+ * </pre>
+ *
+ * <p>The first 64 bits are strictly increasing across all threads, the counter orders the ids of the same millisecond and an overflowing counter
+ * or a clock going back borrows from the next millisecond. Random bits come from {@link ThreadLocalRandom} so that unlike
+ * {@link java.util.UUID#randomUUID()} generating an id neither blocks on entropy nor contends on a shared {@link java.security.SecureRandom}.
+ * Ids are not meant to be unguessable, they are only served in development.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * Created on October, 2026
+ */
+class UlidErrorIdGenerator implements ErrorIdGenerator {
+
+	static final int LENGTH = 26;
+
+	private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+	private static final int COUNTER_BITS = 16;
+
+	/**
+	 * Epoch millis shifted by {@link #COUNTER_BITS} plus the counter of the last id
+	 */
+	private final AtomicLong lastTimeAndCounter = new AtomicLong();
+
+	private final LongSupplier clock;
+
+	UlidErrorIdGenerator() {
+		this(System::currentTimeMillis);
+	}
+
+	UlidErrorIdGenerator(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public String generate() {
+		final long now = clock.getAsLong() << COUNTER_BITS;
+		final long timeAndCounter = lastTimeAndCounter.updateAndGet(last -> Math.max(last + 1, now));
+		final long random = ThreadLocalRandom.current().nextLong();
+
+		final char[] id = new char[LENGTH];
+
+		// 130 bits are encoded, the first character only holds the 2 leading zero bits and the first 3 bits of the id
+		for (int i = LENGTH - 1, shift = 0; i >= 0; i--, shift += 5) {
+			id[i] = ALPHABET[bits(timeAndCounter, random, shift)];
+		}
+		return new String(id);
+	}
+
+	/**
+	 * @return 5 bits of the 128 bits number {@code high:low} starting from the least significant bit at {@code shift}
+	 */
+	private static int bits(long high, long low, int shift) {
+		if (shift >= 64) {
+			return (int) (high >>> (shift - 64)) & 0x1F;
+		}
+		if (shift > 59) {
+			// Spans both halves
+			return (int) ((low >>> shift) | (high << (64 - shift))) & 0x1F;
+		}
+		return (int) (low >>> shift) & 0x1F;
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+// ACE code editor initialization
+{
+    // Number of lines fetched each time a snippet is expanded, the server caps it too
+    const EXPANSION_LINES = 20;
+
+    function initializeSourceCodeEditor(el) {
+        const id = el.getAttribute('id');
+        const fileType = el.getAttribute('fileType').toLowerCase();
+        const firstLineNumber = parseInt(el.getAttribute('firstLineNumber'));
+        const editorEl = document.getElementById(id + 'Content');
+        const editor = ace.edit(editorEl);
+        editor.setOption('firstLineNumber', firstLineNumber);
+
+        editor.commands.bindKeys({"ctrl-l":null});
+        editor.setTheme('ace/theme/eclipse');
+        editor.session.setMode('ace/mode/' + fileType);
+        editor.setReadOnly(true);
+        editor.getSession().setUseWorker(false);
+        highlightErrorLine(el, editor);
+
+        // Scrolling past the ends of the snippet expands it
+        editor.on('mousewheel', e => {
+            const renderer = editor.renderer;
+            if (e.wheelY < 0 && renderer.getScrollTop() <= 0) {
+                expandSnippet(el, editor, true);
+            }
+            else if (e.wheelY > 0 && renderer.getScrollBottomRow() >= editor.session.getLength() - 1) {
+                expandSnippet(el, editor, false);
+            }
+        });
+    }
+
+    function highlightErrorLine(el, editor) {
+        const errorLineNumber = parseInt(el.getAttribute('errorLineNumber')) - parseInt(el.getAttribute('firstLineNumber'));
+
+        if (el.errorMarker) {
+            editor.session.removeMarker(el.errorMarker);
+        }
+        el.errorMarker = editor.session.addMarker(
+            new ace.Range(errorLineNumber, 0, errorLineNumber, 1), 'error-highlight', 'fullLine'
+        );
+        editor.getSession().setAnnotations([{
+            row: errorLineNumber,
+            column: 0,
+            text: el.getAttribute('errorMessage'),
+            type: "error"
+        }]);
+    }
+
+    function expandSnippet(el, editor, above) {
+        const linesUrl = el.getAttribute('linesUrl');
+        const firstLineNumber = parseInt(el.getAttribute('firstLineNumber'));
+        const lastLineNumber = firstLineNumber + editor.session.getLength() - 1;
+        const lineCount = el.lineCount;
+
+        if (!linesUrl || el.expanding || (above && firstLineNumber <= 1) || (!above && lineCount !== undefined && lastLineNumber >= lineCount)) {
+            return;
+        }
+
+        const from = above ? Math.max(firstLineNumber - EXPANSION_LINES, 1) : lastLineNumber + 1;
+        const to = above ? firstLineNumber - 1 : lastLineNumber + EXPANSION_LINES;
+        el.expanding = true;
+
+        fetch(linesUrl + '?from=' + from + '&to=' + to, {credentials: 'same-origin'})
+            .then(response => response.ok ? response.json() : Promise.reject(response.status))
+            .then(lines => {
+                el.lineCount = lines.lineCount === null ? undefined : lines.lineCount;
+
+                if (lines.from > lines.to) {
+                    el.lineCount = lastLineNumber;
+                    return;
+                }
+
+                if (above) {
+                    editor.session.insert({row: 0, column: 0}, lines.sourceCode + '\n');
+                    el.setAttribute('firstLineNumber', lines.from);
+                    editor.setOption('firstLineNumber', lines.from);
+                    editor.renderer.scrollToRow(lines.to - lines.from + 1);
+                }
+                else {
+                    editor.session.insert({row: editor.session.getLength(), column: 0}, '\n' + lines.sourceCode);
+                }
+                highlightErrorLine(el, editor);
+            })
+            .catch(() => el.removeAttribute('linesUrl'))
+            .finally(() => el.expanding = false);
+    }
+
+    // The editor is not bundled when the starter is built without Maven, then sources are shown as they are
+    function showSourceCodeEditor(el) {
+        if (window.ace) {
+            initializeSourceCodeEditor(el);
+        }
+    }
+
+    // Only the first snippets are embedded, the others are fetched by their tokens once they are shown
+    function loadSnippet(el) {
+        const snippetUrl = el.getAttribute('snippetUrl');
+
+        if (!snippetUrl) {
+            return;
+        }
+
+        el.removeAttribute('snippetUrl');
+        const contentEl = document.getElementById(el.getAttribute('id') + 'Content');
+        contentEl.textContent = 'Loading source...';
+
+        fetch(snippetUrl, {credentials: 'same-origin'})
+            .then(response => response.ok ? response.json() : Promise.reject(response.status))
+            .then(snippet => {
+                el.setAttribute('firstLineNumber', snippet.firstLineNumber);
+                el.querySelector('.path').textContent = snippet.sourceCodePath || '';
+                contentEl.textContent = snippet.sourceCode;
+                showSourceCodeEditor(el);
+            })
+            .catch(() => contentEl.textContent = 'Source cannot be fetched, the application may be restarted since the error page is rendered.');
+    }
+
+    document.querySelectorAll('.code-editor').forEach(el => {
+        if (!el.getAttribute('snippetUrl')) {
+            showSourceCodeEditor(el);
+        }
+    });
+    document.querySelectorAll('.code-editor.show').forEach(el => loadSnippet(el));
+}
+
+// Highlight root cause in trace if exists
+if (document.getElementById('trace')) {
+    let found = false;
+    while(window.find('Caused by:', true)) {
+        found = true;
+    }
+
+    if(found) {
+        const range = window.getSelection().getRangeAt(0);
+        const fragment = range.extractContents();
+        const span = document.createElement('span');
+        span.setAttribute('id', 'cause');
+        span.appendChild(fragment);
+        range.insertNode(span);
+        window.getSelection().empty();
+        window.scrollTo(0, 0);
+    }
+    else {
+        let element = document.querySelector('[href="#cause"]');
+        element.classList.add('disabled');
+        element.setAttribute('title', 'There is no root cause for this exception');
+    }
+}
+
+// Make lines of user's project's own classes interactable
+{
+    document.querySelectorAll('.own-class').forEach( el => el.onclick = showSourceCode);
+    function showSourceCode() {
+        const id = this.attributes['source-id'].value;
+        document.querySelectorAll('.code-editor.show').forEach(el => el.classList.remove('show'));
+        document.getElementById(id).classList.add('show');
+        loadSnippet(document.getElementById(id));
+        window.scrollTo(0, 0);
+    }
+
+    document.querySelectorAll('.clipboard').forEach( el => el.onclick = copyToClipboardHandler);
+    function copyToClipboardHandler() {
+        const errorLocation = this.getAttribute('errorLocation');
+        copyToClipboard(errorLocation);
+    }
+
+}
+
+// Search Box
+document.addEventListener('mouseup', function(e) {
+    const thetext = window.getSelection().toString();
+    if (thetext.length > 0){
+        document.getElementById('searchBox').style.top = e.pageY + 'px';
+        document.getElementById('searchBox').style.left = e.pageX + 'px';
+        document.getElementById('searchBox').style.display = 'block';
+
+        const searchInGoogleEl = document.getElementById('searchInGoogle');
+        searchInGoogleEl.setAttribute('href', searchInGoogleEl.getAttribute('orig-href') + thetext);
+
+        const searchInStackoverflowEl = document.getElementById('searchInStackoverflow');
+        searchInStackoverflowEl.setAttribute('href', searchInStackoverflowEl.getAttribute('orig-href') + thetext);
+
+        document.getElementById('copyToClipboard').onclick = e => {
+            copyToClipboard(thetext);
+            document.getElementById('searchBox').style.display = 'none';
+        };
+    }
+}, false);
+
+document.addEventListener('click', function(e){
+    if (window.getSelection().toString().trim().length === 0){
+        document.getElementById('searchBox').style.display = 'none';
+    }
+}, false);
+
+// Other Functions
+const isOverflown = function(element) {
+    return element.scrollHeight > element.clientHeight || element.scrollWidth > element.clientWidth;
+};
+const toggleExpandTd = function () {
+    this.style.maxHeight = this.style.maxHeight ? '' : 'fit-content';
+};
+const processTdsForOverflow = function () {
+    document.querySelectorAll('td:nth-child(2) > div').forEach(e => isOverflown(e) ? e.classList.add('expandable') : '');
+    document.querySelectorAll('.expandable').forEach(e => e.onclick = toggleExpandTd);
+};
+const toggle = function(id) {
+    const el = document.getElementById(id).style;
+    el.display = el.display == 'none' ? 'block' : 'none';
+    processTdsForOverflow();
+    return false;
+};
+const show = function(id) {
+    document.getElementById(id).style.display = 'block';
+};
+const hide = function(id) {
+    document.getElementById(id).style.display = 'none';
+};
+const toggleFullTrace = function () {
+    const traceEl = document.getElementById('trace');
+    traceEl.classList.contains('compact') ? traceEl.classList.remove('compact') : traceEl.classList.add('compact');
+    return false;
+};
+const scrollToCause = function () {
+    const causeEl = document.getElementById('cause');
+
+    if (!causeEl) {
+        return false;
+    }
+
+    const currentScrollY = window.scrollY;
+    causeEl.scrollIntoView();
+
+    const shouldRestorePageScroll = document.getElementById('trace').classList.contains('compact');
+
+    if(shouldRestorePageScroll) {
+        window.scroll({
+            top: currentScrollY,
+            behavior: 'instant'
+        });
+    }
+    return false;
+};
+
+function copyToClipboard(text) {
+    const selectionAreaEl = document.getElementById('selectionArea');
+    selectionAreaEl.textContent = text;
+    window.getSelection().selectAllChildren(selectionAreaEl);
+    const isCopySuccessful = document.execCommand('copy');
+    if (isCopySuccessful) {
+        const copyMessageEl = document.getElementById('copyMessageWrapper');
+        copyMessageEl.querySelector('span').innerText = text;
+        copyMessageEl.classList.remove('hide');
+        copyMessageEl.classList.add('show');
+        setTimeout(() => {
+            copyMessageEl.classList.remove('show');
+        copyMessageEl.classList.add('hide');
+    }, 1200);
+    }
+}
+
+scrollToCause();
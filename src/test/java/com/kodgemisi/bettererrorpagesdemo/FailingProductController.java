@@ -0,0 +1,36 @@
+package com.kodgemisi.bettererrorpagesdemo;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * This class is used in load tests, each of its endpoints fails in a different way
+ */
+@Controller
+public class FailingProductController {
+
+	@GetMapping("/products/{id}")
+	public String product(@PathVariable String id) {
+		return findProduct(id);
+	}
+
+	@GetMapping("/api/products/{id}")
+	@ResponseBody
+	public String apiProduct(@PathVariable String id) {
+		return findProduct(id);
+	}
+
+	/**
+	 * Renders a template which fails as there is no product in the model
+	 */
+	@GetMapping("/products/{id}/detail")
+	public String productDetail(@PathVariable String id) {
+		return "products/list";
+	}
+
+	private String findProduct(String id) {
+		throw new IllegalStateException("Product " + id + " is not found");
+	}
+}
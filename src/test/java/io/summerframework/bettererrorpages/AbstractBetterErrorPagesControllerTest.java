@@ -1,6 +1,7 @@
 package io.summerframework.bettererrorpages;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
@@ -23,7 +24,6 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 @SpringBootTest(classes = TestConfiguration.class)
 abstract class AbstractBetterErrorPagesControllerTest {
 
-	@InjectMocks
 	private BetterErrorPagesController betterErrorPagesController;
 
 	@Mock
@@ -41,6 +41,24 @@ abstract class AbstractBetterErrorPagesControllerTest {
 	@Spy
 	private BetterErrorPagesService betterErrorPagesService = betterErrorPagesService();
 
+	@Spy
+	private RenderBulkhead renderBulkhead = new RenderBulkhead(RenderBulkhead.DEFAULT_MAX_CONCURRENT_RENDERS, RenderBulkhead.DEFAULT_WAIT_TIMEOUT);
+
+	@Spy
+	private BetterErrorPagesAssets betterErrorPagesAssets = new BetterErrorPagesAssets();
+
+	@Spy
+	private SnippetTokens snippetTokens = new SnippetTokens();
+
+	/**
+	 * Built after the mocks are initialized, as the render mode is a primitive argument which {@link InjectMocks} cannot resolve
+	 */
+	@BeforeEach
+	void setUp() {
+		betterErrorPagesController = new BetterErrorPagesController(errorAttributes, errorProperties, null, betterErrorPagesService, null, null, null,
+																	renderBulkhead, betterErrorPagesAssets, snippetTokens, "/error", false);
+	}
+
 	@Test
 	void shouldReturnDefaultMessage() {
 		Map<String, Object> map = new HashMap<>();
@@ -61,7 +79,7 @@ abstract class AbstractBetterErrorPagesControllerTest {
 	}
 
 	protected BetterErrorPagesService betterErrorPagesService() {
-		return new BetterErrorPagesService("com.kodgemisi");
+		return new BetterErrorPagesService("com.kodgemisi", Utils.sourceCodeLoader());
 	}
 
 	protected void stringOccursNTimesInStyledTrace(ModelAndView modelAndView, String target, int times) {
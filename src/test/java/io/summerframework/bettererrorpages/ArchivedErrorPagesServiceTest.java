@@ -0,0 +1,373 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class ArchivedErrorPagesServiceTest {
+
+	private static final long TIMEOUT = 60_000;
+
+	@Test
+	void eldestErrorIsEvictedWhenMaxEntriesIsExceeded() {
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, 2, Long.MAX_VALUE);
+
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes("trace"));
+		archivedErrorPagesService.putErrorTrace("2", Utils.errorAttributes("trace"));
+		archivedErrorPagesService.putErrorTrace("3", Utils.errorAttributes("trace"));
+
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("2").isPresent());
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("3").isPresent());
+		assertEquals(2, archivedErrorPagesService.getEntryCount());
+		assertEquals(1, archivedErrorPagesService.getEvictionCount());
+	}
+
+	@Test
+	void eldestErrorsAreEvictedWhenMaxSizeIsExceeded() {
+		final ArchivedErrorPagesService sample = new ArchivedErrorPagesService(TIMEOUT);
+		sample.putErrorTrace("0", Utils.errorAttributes(trace('0', 1000)));
+		final long sizeOfOne = sample.getCurrentBytes();
+
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, sizeOfOne * 2);
+
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes(trace('1', 1000)));
+		archivedErrorPagesService.putErrorTrace("2", Utils.errorAttributes(trace('2', 1000)));
+		assertEquals(sizeOfOne * 2, archivedErrorPagesService.getCurrentBytes());
+
+		archivedErrorPagesService.putErrorTrace("3", Utils.errorAttributes(trace('3', 1000)));
+
+		assertEquals(2, archivedErrorPagesService.getEntryCount());
+		assertEquals(sizeOfOne * 2, archivedErrorPagesService.getCurrentBytes());
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+	}
+
+	@Test
+	void newestErrorIsKeptEvenIfItIsBiggerThanMaxSize() {
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, 100);
+
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes(trace(1000)));
+		archivedErrorPagesService.putErrorTrace("2", Utils.errorAttributes(trace(1000)));
+
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("2").isPresent());
+		assertEquals(1, archivedErrorPagesService.getEntryCount());
+		assertEquals(1, archivedErrorPagesService.getEvictionCount());
+	}
+
+	@Test
+	void errorsExpireAfterTimeout() {
+		final AtomicLong clock = new AtomicLong();
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, Long.MAX_VALUE, null, clock::get);
+
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes("trace1"));
+		clock.set(10);
+		archivedErrorPagesService.putErrorTrace("2", Utils.errorAttributes("trace2"));
+		final long bytesOfOne = archivedErrorPagesService.getCurrentBytes() / 2;
+
+		clock.set(TIMEOUT + 5);
+		archivedErrorPagesService.expireErrors();
+
+		assertEquals(1, archivedErrorPagesService.getEntryCount());
+		assertEquals(1, archivedErrorPagesService.getExpirationCount());
+		assertEquals(bytesOfOne, archivedErrorPagesService.getCurrentBytes());
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("2").isPresent());
+	}
+
+	@Test
+	void accessExtendsExpiry() {
+		final AtomicLong clock = new AtomicLong();
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, Long.MAX_VALUE, null, clock::get);
+
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes("trace"));
+
+		clock.set(TIMEOUT - 1);
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+
+		clock.set(TIMEOUT + 1);
+		archivedErrorPagesService.expireErrors();
+		assertEquals(1, archivedErrorPagesService.getEntryCount());
+
+		clock.set(2 * TIMEOUT - 1);
+		archivedErrorPagesService.expireErrors();
+		assertEquals(0, archivedErrorPagesService.getEntryCount());
+		assertEquals(0, archivedErrorPagesService.getCurrentBytes());
+	}
+
+	@Test
+	void expiredErrorIsNotReturnedBeforeItIsRemoved() {
+		final AtomicLong clock = new AtomicLong();
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, Long.MAX_VALUE, null, clock::get);
+
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes("trace"));
+		clock.set(TIMEOUT);
+
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+	}
+
+	@Test
+	void accessedErrorIsEvictedAfterTheOthers() {
+		final AtomicLong clock = new AtomicLong();
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, 2, Long.MAX_VALUE, null, clock::get);
+
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes("trace"));
+		clock.set(10);
+		archivedErrorPagesService.putErrorTrace("2", Utils.errorAttributes("trace"));
+
+		// "1" is moved behind "2" when its queued expiry is passed
+		clock.set(TIMEOUT - 1);
+		archivedErrorPagesService.getErrorAttributesById("1");
+		clock.set(TIMEOUT);
+		archivedErrorPagesService.expireErrors();
+
+		archivedErrorPagesService.putErrorTrace("3", Utils.errorAttributes("trace"));
+
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("2").isPresent());
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("3").isPresent());
+	}
+
+	@Test
+	void accessedErrorIsEvictedAfterTheOthersBeforeItsQueuedExpiry() {
+		final AtomicLong clock = new AtomicLong();
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, 2, Long.MAX_VALUE, null, clock::get);
+
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes("trace"));
+		clock.set(10);
+		archivedErrorPagesService.putErrorTrace("2", Utils.errorAttributes("trace"));
+
+		// "1" is still at the head of the queue, it is moved behind "2" by the eviction
+		clock.set(20);
+		archivedErrorPagesService.getErrorAttributesById("1");
+		archivedErrorPagesService.putErrorTrace("3", Utils.errorAttributes("trace"));
+
+		assertEquals(1, archivedErrorPagesService.getEvictionCount());
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("2").isPresent());
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("3").isPresent());
+	}
+
+	@Test
+	void attributesWithoutStringTracesAreCopied() {
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT);
+		final StringBuilder trace = new StringBuilder("trace");
+		final Map<String, Object> errorAttributes = Utils.errorAttributes(null);
+		errorAttributes.put("trace", trace);
+
+		archivedErrorPagesService.putErrorTrace("1", errorAttributes);
+		errorAttributes.put("message", "Changed by the response.");
+		errorAttributes.remove("trace");
+
+		final Map<String, Object> archived = archivedErrorPagesService.getErrorAttributesById("1").get();
+		assertEquals("Demo error here.", archived.get("message"));
+		assertSame(trace, archived.get("trace"));
+	}
+
+	@Test
+	void errorsInTheLogSurviveRestarts(@TempDir Path tempDir) throws IOException {
+		final AtomicLong clock = new AtomicLong();
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, Long.MAX_VALUE,
+																								  new MappedErrorLog(tempDir), clock::get);
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes("trace"));
+		clock.set(10);
+		archivedErrorPagesService.putErrorTrace("2", Utils.errorAttributes("trace"));
+		archivedErrorPagesService.close();
+
+		clock.set(TIMEOUT + 5);
+		final ArchivedErrorPagesService restarted = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, Long.MAX_VALUE, new MappedErrorLog(tempDir),
+																				  clock::get);
+
+		assertEquals(1, restarted.getEntryCount());
+		assertFalse(restarted.getErrorAttributesById("1").isPresent());
+
+		final Map<String, Object> errorAttributes = restarted.getErrorAttributesById("2").get();
+		assertEquals("trace", errorAttributes.get("trace"));
+		assertEquals(500, errorAttributes.get("status"));
+		assertEquals(true, errorAttributes.get("archived"));
+		assertEquals(10L, errorAttributes.get("betterErrorPagesTimestampMs"));
+		restarted.close();
+	}
+
+	@Test
+	void expiredSegmentsAreCompacted(@TempDir Path tempDir) throws IOException {
+		final AtomicLong clock = new AtomicLong();
+		final MappedErrorLog errorLog = new MappedErrorLog(tempDir, 4096);
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, Long.MAX_VALUE, errorLog,
+																								  clock::get);
+		for (int i = 0; i < 20; i++) {
+			clock.set(i);
+			archivedErrorPagesService.putErrorTrace(String.valueOf(i), Utils.errorAttributes(trace(500)));
+		}
+		final int segmentCount = errorLog.getSegmentCount();
+
+		// Keeps "19" and the first one
+		clock.set(TIMEOUT - 1);
+		archivedErrorPagesService.getErrorAttributesById("0");
+		clock.set(TIMEOUT + 18);
+		archivedErrorPagesService.expireErrors();
+
+		// "0" is copied next to "19" and the other segments are deleted
+		assertTrue(segmentCount > 2);
+		assertEquals(2, archivedErrorPagesService.getEntryCount());
+		assertEquals(1, errorLog.getSegmentCount());
+		assertEquals(trace(500), archivedErrorPagesService.getErrorAttributesById("0").get().get("trace"));
+		assertEquals(trace(500), archivedErrorPagesService.getErrorAttributesById("19").get().get("trace"));
+		archivedErrorPagesService.close();
+	}
+
+	@Test
+	void tracesShareTheirLines() {
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT);
+		final String first = "java.lang.IllegalStateException: first\n\tat com.acme.Foo.bar(Foo.java:42)\n\tat org.acme.Bar.baz(Bar.java:7)\n";
+		final String second = "java.lang.IllegalStateException: second\n\tat com.acme.Foo.bar(Foo.java:42)\n\tat org.acme.Bar.baz(Bar.java:7)\n";
+
+		final Map<String, Object> errorAttributes = Utils.errorAttributes(first);
+		archivedErrorPagesService.putErrorTrace("1", errorAttributes);
+		archivedErrorPagesService.putErrorTrace("2", Utils.errorAttributes(second));
+
+		// Two messages, two frames and the empty last line
+		assertEquals(5, archivedErrorPagesService.getFrameCount());
+		assertEquals(first, errorAttributes.get("trace"));
+		assertEquals(first, archivedErrorPagesService.getErrorAttributesById("1").get().get("trace"));
+		assertEquals(second, archivedErrorPagesService.getErrorAttributesById("2").get().get("trace"));
+		assertEquals("Demo error here.", archivedErrorPagesService.getErrorAttributesById("2").get().get("message"));
+	}
+
+	@Test
+	void linesAreRemovedWithTheirLastTrace() {
+		final AtomicLong clock = new AtomicLong();
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, Long.MAX_VALUE, null,
+																								  clock::get);
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes("first\nshared"));
+		clock.set(10);
+		archivedErrorPagesService.putErrorTrace("2", Utils.errorAttributes("second\nshared"));
+
+		clock.set(TIMEOUT);
+		archivedErrorPagesService.expireErrors();
+		assertEquals(2, archivedErrorPagesService.getFrameCount());
+
+		clock.set(TIMEOUT + 10);
+		archivedErrorPagesService.expireErrors();
+		assertEquals(0, archivedErrorPagesService.getFrameCount());
+		assertEquals(0, archivedErrorPagesService.getCurrentBytes());
+	}
+
+	@Test
+	void repeatsAreArchivedInTheRecordOfTheFirstOne() {
+		final AtomicLong clock = new AtomicLong();
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, Long.MAX_VALUE, null,
+																								  clock::get);
+		archivedErrorPagesService.putErrorTrace("1", "fingerprint", errorAttributes("trace", "/products/1"));
+		clock.set(10);
+		archivedErrorPagesService.putErrorTrace("2", "fingerprint", errorAttributes("trace", "/products/2"));
+		clock.set(20);
+		archivedErrorPagesService.putErrorTrace("3", "fingerprint", errorAttributes("trace", "/products/1"));
+		archivedErrorPagesService.putErrorTrace("4", "other", errorAttributes("trace", "/products/1"));
+
+		assertEquals(2, archivedErrorPagesService.getEntryCount());
+
+		final Map<String, Object> errorAttributes = archivedErrorPagesService.getErrorAttributesById("2").get();
+		assertEquals("2", errorAttributes.get("betterErrorPagesErrorId"));
+		assertEquals(0L, errorAttributes.get("betterErrorPagesTimestampMs"));
+		assertEquals(3L, errorAttributes.get("betterErrorPagesOccurrences"));
+		assertEquals(new Date(20), errorAttributes.get("betterErrorPagesLastSeen"));
+		assertEquals("trace", errorAttributes.get("trace"));
+
+		// Distinct requests in the order they are last seen
+		final List<ErrorOccurrence> requests = (List<ErrorOccurrence>) errorAttributes.get("betterErrorPagesRequests");
+		assertEquals(2, requests.size());
+		assertEquals("/products/2", requests.get(0).getPath());
+		assertEquals("/products/1", requests.get(1).getPath());
+		assertEquals(2, requests.get(1).getCount());
+		assertEquals("3", requests.get(1).getErrorId());
+
+		assertEquals(1L, archivedErrorPagesService.getErrorAttributesById("4").get().get("betterErrorPagesOccurrences"));
+	}
+
+	@Test
+	void onlyTheIdsOfTheLastRepeatsAreKept() {
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT);
+
+		for (int i = 0; i <= ArchivedErrorPagesService.MAX_REPEAT_IDS + 1; i++) {
+			archivedErrorPagesService.putErrorTrace(String.valueOf(i), "fingerprint", errorAttributes("trace", "/products/" + i));
+		}
+
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("0").isPresent());
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("2").isPresent());
+
+		final Map<String, Object> errorAttributes = archivedErrorPagesService.getErrorAttributesById("0").get();
+		assertEquals((long) ArchivedErrorPagesService.MAX_REPEAT_IDS + 2, errorAttributes.get("betterErrorPagesOccurrences"));
+		assertEquals(ArchivedErrorPagesService.MAX_REQUESTS, ((List<?>) errorAttributes.get("betterErrorPagesRequests")).size());
+	}
+
+	@Test
+	void repeatsOfARemovedRecordAreRemovedWithIt() {
+		final AtomicLong clock = new AtomicLong();
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT, Integer.MAX_VALUE, Long.MAX_VALUE, null,
+																								  clock::get);
+		archivedErrorPagesService.putErrorTrace("1", "fingerprint", Utils.errorAttributes("trace"));
+		archivedErrorPagesService.putErrorTrace("2", "fingerprint", Utils.errorAttributes("trace"));
+
+		clock.set(TIMEOUT);
+		archivedErrorPagesService.expireErrors();
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("2").isPresent());
+
+		// A new record is created for the next repeat
+		archivedErrorPagesService.putErrorTrace("3", "fingerprint", Utils.errorAttributes("trace"));
+		assertEquals(1, archivedErrorPagesService.getEntryCount());
+		assertEquals(1L, archivedErrorPagesService.getErrorAttributesById("3").get().get("betterErrorPagesOccurrences"));
+	}
+
+	@Test
+	void sizeIsEstimatedFromStrings() {
+		final long sizeOfShort = ArchivedErrorPagesService.estimateSize(Utils.errorAttributes(trace(10)));
+		final long sizeOfLong = ArchivedErrorPagesService.estimateSize(Utils.errorAttributes(trace(1010)));
+
+		assertEquals(2 * 1000, sizeOfLong - sizeOfShort);
+	}
+
+	private static Map<String, Object> errorAttributes(String trace, String path) {
+		final Map<String, Object> errorAttributes = Utils.errorAttributes(trace);
+		errorAttributes.put("path", path);
+		return errorAttributes;
+	}
+
+	private static String trace(int length) {
+		return trace('a', length);
+	}
+
+	private static String trace(char c, int length) {
+		final StringBuilder trace = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			trace.append(c);
+		}
+		return trace.toString();
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Created on October, 2026
+ */
+class BetterErrorPagesAssetsControllerTest {
+
+	private static final String CSS = "better-error-pages.css";
+
+	private final BetterErrorPagesAssets betterErrorPagesAssets = new BetterErrorPagesAssets();
+
+	private final BetterErrorPagesAssetsController controller = new BetterErrorPagesAssetsController(betterErrorPagesAssets);
+
+	private final String version = betterErrorPagesAssets.getVersion();
+
+	@Test
+	void assetsAreCachedForGood() {
+		final ResponseEntity<byte[]> response = controller.asset(version, CSS, null, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("public, max-age=31536000, immutable", response.getHeaders().getCacheControl());
+		assertEquals(betterErrorPagesAssets.get(version, CSS).getEtag(), response.getHeaders().getETag());
+		assertEquals("text/css;charset=UTF-8", response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+		assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertArrayEquals(betterErrorPagesAssets.get(version, CSS).getContent(), response.getBody());
+	}
+
+	@Test
+	void gzippedVariantIsServedWhenAccepted() {
+		final ResponseEntity<byte[]> response = controller.asset(version, CSS, "gzip, deflate, br", null);
+
+		assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(betterErrorPagesAssets.get(version, CSS).getGzippedEtag(), response.getHeaders().getETag());
+		assertTrue(response.getHeaders().getVary().contains(HttpHeaders.ACCEPT_ENCODING));
+		assertArrayEquals(betterErrorPagesAssets.get(version, CSS).getGzipped(), response.getBody());
+
+		assertNull(controller.asset(version, CSS, "gzip;q=0, deflate", null).getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	void revalidatedAssetsAreNotModified() {
+		final String etag = controller.asset(version, CSS, "gzip", null).getHeaders().getETag();
+		final ResponseEntity<byte[]> response = controller.asset(version, CSS, "gzip", etag);
+
+		assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+		assertNull(response.getBody());
+
+		assertEquals(HttpStatus.OK, controller.asset(version, CSS, null, etag).getStatusCode(), "etag of the gzipped variant");
+	}
+
+	@Test
+	void unknownAssetsAndVersionsAreNotFound() {
+		assertEquals(HttpStatus.NOT_FOUND, controller.asset(version, "unknown.js", null, null).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, controller.asset("x" + version.substring(1), CSS, null, null).getStatusCode());
+	}
+
+	@Test
+	void acceptEncodingIsParsed() {
+		assertTrue(BetterErrorPagesAssetsController.acceptsGzip("gzip"));
+		assertTrue(BetterErrorPagesAssetsController.acceptsGzip("deflate, GZIP;q=0.5"));
+		assertTrue(BetterErrorPagesAssetsController.acceptsGzip("*"));
+		assertFalse(BetterErrorPagesAssetsController.acceptsGzip("gzip;q=0"));
+		assertFalse(BetterErrorPagesAssetsController.acceptsGzip("gzip; q=0.0"));
+		assertFalse(BetterErrorPagesAssetsController.acceptsGzip("br, deflate"));
+		assertFalse(BetterErrorPagesAssetsController.acceptsGzip(null));
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Created on October, 2026
+ */
+class BetterErrorPagesAssetsTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void bundledAssetsAreFoundByTheCurrentVersion() {
+		final BetterErrorPagesAssets betterErrorPagesAssets = new BetterErrorPagesAssets();
+		final String version = betterErrorPagesAssets.getVersion();
+
+		final BetterErrorPagesAssets.Asset css = betterErrorPagesAssets.get(version, "better-error-pages.css");
+		assertNotNull(css);
+		assertEquals("text/css;charset=UTF-8", css.getContentType());
+		assertNotNull(betterErrorPagesAssets.get(version, "better-error-pages.js"));
+		assertEquals("application/javascript;charset=UTF-8", betterErrorPagesAssets.get(version, "ace.js").getContentType());
+		assertNotNull(betterErrorPagesAssets.get(version, "mode-java.js"));
+
+		assertNull(betterErrorPagesAssets.get("x" + version.substring(1), "better-error-pages.css"), "previous versions are not served");
+		assertNull(betterErrorPagesAssets.get(version, "../templates/better-error-pages.html"));
+		assertEquals("/error/assets/" + version, betterErrorPagesAssets.getPath("/error"));
+	}
+
+	@Test
+	void gzippedVariantHasTheSameContentAndItsOwnEtag() throws IOException {
+		final BetterErrorPagesAssets betterErrorPagesAssets = new BetterErrorPagesAssets();
+		final BetterErrorPagesAssets.Asset js = betterErrorPagesAssets.get(betterErrorPagesAssets.getVersion(), "better-error-pages.js");
+
+		assertNotNull(js.getGzipped());
+		assertTrue(js.getGzipped().length < js.getContent().length);
+		assertArrayEquals(js.getContent(), gunzip(js.getGzipped()));
+		assertNotEquals(js.getEtag(), js.getGzippedEtag());
+		assertTrue(js.getGzippedEtag().startsWith("\"") && js.getGzippedEtag().endsWith("\""));
+	}
+
+	@Test
+	void versionChangesWithTheContents() throws IOException {
+		final String first = assetsWithScript("console.log('first');").getVersion();
+
+		assertEquals(first, assetsWithScript("console.log('first');").getVersion());
+		assertNotEquals(first, assetsWithScript("console.log('second');").getVersion());
+	}
+
+	@Test
+	void missingAssetsAreNotServed() throws IOException {
+		final BetterErrorPagesAssets betterErrorPagesAssets = assetsWithScript("console.log('first');");
+
+		assertNull(betterErrorPagesAssets.get(betterErrorPagesAssets.getVersion(), "ace.js"));
+		assertNull(betterErrorPagesAssets.get(betterErrorPagesAssets.getVersion(), "better-error-pages.css"));
+		assertNotNull(betterErrorPagesAssets.get(betterErrorPagesAssets.getVersion(), "better-error-pages.js"));
+	}
+
+	@Test
+	void aceIsServedFromTheVersionOfTheWebjarOnTheClasspath() throws IOException {
+		final Path root = Files.createTempDirectory(tempDir, "assets");
+		final Path pomProperties = root.resolve(BetterErrorPagesAssets.ACE_POM_PROPERTIES);
+		Files.createDirectories(pomProperties.getParent());
+		Files.write(pomProperties, "groupId=org.webjars.npm\nartifactId=ace-builds\nversion=1.2.3\n".getBytes(StandardCharsets.UTF_8));
+		final Path aceLocation = Files.createDirectories(root.resolve(String.format(BetterErrorPagesAssets.ACE_LOCATION, "1.2.3")));
+		Files.write(aceLocation.resolve("ace.js"), "window.ace = {};".getBytes(StandardCharsets.UTF_8));
+
+		final BetterErrorPagesAssets betterErrorPagesAssets = assetsIn(root);
+
+		assertArrayEquals("window.ace = {};".getBytes(StandardCharsets.UTF_8),
+						  betterErrorPagesAssets.get(betterErrorPagesAssets.getVersion(), "ace.js").getContent());
+		assertNull(betterErrorPagesAssets.get(betterErrorPagesAssets.getVersion(), "mode-java.js"));
+	}
+
+	private BetterErrorPagesAssets assetsWithScript(String script) throws IOException {
+		final Path root = Files.createTempDirectory(tempDir, "assets");
+		final Path location = Files.createDirectories(root.resolve(BetterErrorPagesAssets.LOCATION));
+		Files.write(location.resolve("better-error-pages.js"), script.getBytes(StandardCharsets.UTF_8));
+		return assetsIn(root);
+	}
+
+	private static BetterErrorPagesAssets assetsIn(Path root) throws IOException {
+
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] { root.toUri().toURL() }, null)) {
+			return new BetterErrorPagesAssets(classLoader);
+		}
+	}
+
+	private static byte[] gunzip(byte[] gzipped) throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+			final byte[] buffer = new byte[8192];
+			int read;
+			while ((read = inputStream.read(buffer)) >= 0) {
+				outputStream.write(buffer, 0, read);
+			}
+		}
+		return outputStream.toByteArray();
+	}
+}
@@ -12,6 +12,7 @@
 
 package io.summerframework.bettererrorpages;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EmptySource;
 import org.junit.jupiter.params.provider.NullSource;
@@ -21,12 +22,13 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 class BetterErrorPagesServiceTest {
 
 	private static final String PACKAGE_NAME = "com.kodgemisi";
 
-	private final BetterErrorPagesService betterErrorPagesService = new BetterErrorPagesService(PACKAGE_NAME);
+	private final BetterErrorPagesService betterErrorPagesService = new BetterErrorPagesService(PACKAGE_NAME, Utils.sourceCodeLoader());
 
 //	@Test
 //	void styledTraceTest() {
@@ -52,13 +54,36 @@ class BetterErrorPagesServiceTest {
 //		assertEquals(errorContexts.size(), 4);
 //	}
 
+	@Test
+	void styledTraceWrapsLinesOfErrorContexts() {
+		final String sampleTrace = Utils.readSampleFile("sampleTrace.txt");
+
+		final TraceAnalysis traceAnalysis = betterErrorPagesService.analyze(sampleTrace, null);
+		final String styledTrace = traceAnalysis.getStyledTrace();
+
+		assertEquals(4, traceAnalysis.getErrorContexts().size());
+		assertTrue(styledTrace.contains("<span class=\"own-class\" source-id=\"com.kodgemisi.bettererrorpagesdemo.DemoClass:29\">"
+												+ "\tat com.kodgemisi.bettererrorpagesdemo.DemoClass.error(NonPublicController.java:29)</span>"));
+		assertEquals(sampleTrace.split("\n").length, styledTrace.split("\n").length);
+	}
+
+	@Test
+	void styledTraceIsEscapedWithoutTrailingEmptyLines() {
+		final String trace = "java.lang.IllegalStateException: <b>\n\tat com.kodgemisi.Foo.bar(Foo.java:1)\n\n";
+
+		final String styledTrace = betterErrorPagesService.analyze(trace, null).getStyledTrace();
+
+		assertEquals("java.lang.IllegalStateException: &lt;b&gt;\n<span class=\"own-class\" source-id=\"com.kodgemisi.Foo:1\">"
+							 + "\tat com.kodgemisi.Foo.bar(Foo.java:1)</span>", styledTrace);
+	}
+
 	@ParameterizedTest
 	@NullSource
 	@EmptySource
 	@ValueSource(strings = { " ", "   ", "\t", "\n" })
 	void getErrorContextsWithEmptyParameter(String blankTrace) {
 
-		final List<ErrorContext> emptyErrorContexts = betterErrorPagesService.getListOfErrorContext(blankTrace);
+		final List<ErrorContext> emptyErrorContexts = betterErrorPagesService.analyze(blankTrace, null).getErrorContexts();
 		assertEquals(emptyErrorContexts, Collections.emptyList());
 	}
 
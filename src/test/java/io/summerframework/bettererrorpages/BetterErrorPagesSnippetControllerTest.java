@@ -0,0 +1,124 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import com.kodgemisi.bettererrorpagesdemo.DemoClass;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Created on October, 2026
+ */
+class BetterErrorPagesSnippetControllerTest {
+
+	private final SnippetTokens snippetTokens = new SnippetTokens(new byte[32]);
+
+	private final BetterErrorPagesSnippetController controller = new BetterErrorPagesSnippetController(snippetTokens, Utils.sourceCodeLoader(), 4);
+
+	private final String token = snippetTokens.tokenOf(
+			ErrorContext.fromStackTraceElement(new StackTraceElement(DemoClass.class.getName(), "demo", "DemoClass.java", 8)));
+
+	@Test
+	void snippetsAreServedByTheirTokens() {
+		final ResponseEntity<Map<String, Object>> response = controller.snippet(token, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(BetterErrorPagesSnippetController.CACHE_CONTROL, response.getHeaders().getCacheControl());
+		assertNotNull(response.getHeaders().getETag());
+		assertEquals(DemoClass.class.getName() + ":8", response.getBody().get("id"));
+		assertEquals(3, response.getBody().get("firstLineNumber"));
+		assertTrue(((String) response.getBody().get("sourceCode")).contains("class DemoClass {"));
+		assertTrue(((String) response.getBody().get("sourceCodePath")).endsWith("DemoClass.java"));
+	}
+
+	@Test
+	void revalidatedSnippetsAreNotModified() {
+		final String etag = controller.snippet(token, null).getHeaders().getETag();
+		final ResponseEntity<Map<String, Object>> response = controller.snippet(token, etag);
+
+		assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+		assertNull(response.getBody());
+	}
+
+	@Test
+	void snippetsAreExpandedWithTheLinesAroundThem() {
+		final ResponseEntity<Map<String, Object>> response = controller.lines(token, 1, 2, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(BetterErrorPagesSnippetController.CACHE_CONTROL, response.getHeaders().getCacheControl());
+		assertEquals("package com.kodgemisi.bettererrorpagesdemo;\n", response.getBody().get("sourceCode"));
+		assertEquals(1, response.getBody().get("from"));
+		assertEquals(2, response.getBody().get("to"));
+		assertEquals(8, response.getBody().get("lineCount"));
+
+		final String etag = response.getHeaders().getETag();
+		assertEquals(HttpStatus.NOT_MODIFIED, controller.lines(token, 1, 2, etag).getStatusCode());
+	}
+
+	@Test
+	void linesOfAFileWhoseLineCountChangesAreNotRevalidated(@TempDir Path tempDir) throws IOException {
+		final Path source = Files.write(tempDir.resolve("DemoClass.java"), "line1\nline2\n".getBytes(StandardCharsets.UTF_8));
+		final SourceCodeLoader sourceCodeLoader = new SourceCodeLoader(SourceCodeLoader.createExecutor(), Utils.sourcePathResolver(source),
+																	   Utils.sourceFileCache(), SourceCodeLoader.DEFAULT_TIMEOUT,
+																	   SourceCodeLoader.DEFAULT_PREFETCH_COUNT);
+		final BetterErrorPagesSnippetController controller = new BetterErrorPagesSnippetController(snippetTokens, sourceCodeLoader, 4);
+		final String etag = controller.lines(token, 1, 1, null).getHeaders().getETag();
+
+		Files.write(source, "line1\nline2\nline3\n".getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+		final ResponseEntity<Map<String, Object>> response = controller.lines(token, 1, 1, etag);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("line1", response.getBody().get("sourceCode"));
+		assertEquals(3, response.getBody().get("lineCount"));
+		sourceCodeLoader.close();
+	}
+
+	@Test
+	void linesOutOfTheFileAreLeftOut() {
+		final Map<String, Object> lines = controller.lines(token, 7, 10, null).getBody();
+
+		assertEquals(7, lines.get("from"));
+		assertEquals(8, lines.get("to"));
+		assertEquals("\n}", lines.get("sourceCode"));
+
+		assertEquals("", controller.lines(token, 9, 12, null).getBody().get("sourceCode"));
+		assertEquals(1, controller.lines(token, -2, 1, null).getBody().get("from"));
+	}
+
+	@Test
+	void rangesOverTheCapAreRefused() {
+		assertEquals(HttpStatus.BAD_REQUEST, controller.lines(token, 1, 5, null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, controller.lines(token, 5, 4, null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, controller.lines(token, Integer.MIN_VALUE, Integer.MAX_VALUE, null).getStatusCode());
+	}
+
+	@Test
+	void invalidTokensAreNotFound() {
+		assertEquals(HttpStatus.NOT_FOUND, controller.snippet(token.replace('.', 'x'), null).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, controller.lines(token.replace('.', 'x'), 1, 2, null).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, controller.snippet(new SnippetTokens(new byte[] { 1 }).tokenOf(
+				ErrorContext.of(ErrorContext.FileType.HTML, "templates/products/list.html", "templates/products/list.html", 13)), null).getStatusCode());
+	}
+}
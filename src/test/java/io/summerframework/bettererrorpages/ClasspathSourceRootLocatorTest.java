@@ -0,0 +1,109 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class ClasspathSourceRootLocatorTest {
+
+	@TempDir
+	Path tempDir;
+
+	private final ClasspathSourceRootLocator sourceRootLocator = new ClasspathSourceRootLocator();
+
+	@Test
+	void nothingIsLocatedBeforeIndexIsBuilt() throws IOException {
+		final Path project = tempDir.resolve("project");
+		final Path source = createFile(project.resolve("src/main/java/com/acme/Foo.java"));
+		Files.createDirectories(project.resolve("target/classes"));
+
+		assertFalse(sourceRootLocator.isReady());
+		assertNull(sourceRootLocator.locate("com.acme", "Foo.java"));
+
+		sourceRootLocator.buildIndex(Collections.singletonList(project.resolve("target/classes")));
+
+		assertTrue(sourceRootLocator.isReady());
+		assertEquals(source, sourceRootLocator.locate("com.acme", "Foo.java"));
+	}
+
+	@Test
+	void modulesOfGradleMultiModuleProjectAreIndexed() throws IOException {
+		final Path api = tempDir.resolve("project/api");
+		final Path web = tempDir.resolve("project/web");
+		final Path apiSource = createFile(api.resolve("src/main/java/com/acme/api/Api.java"));
+		final Path webSource = createFile(web.resolve("src/main/kotlin/com/acme/web/Web.kt"));
+		final Path webTestSource = createFile(web.resolve("src/test/java/com/acme/web/WebTest.java"));
+		final Path generatedSource = createFile(web.resolve("build/generated/sources/annotationProcessor/java/main/com/acme/web/Web_.java"));
+		Files.createDirectories(api.resolve("build/classes/java/main"));
+		Files.createDirectories(web.resolve("build/classes/kotlin/main"));
+
+		sourceRootLocator.buildIndex(Arrays.asList(api.resolve("build/classes/java/main"), web.resolve("build/classes/kotlin/main")));
+
+		assertEquals(apiSource, sourceRootLocator.locate("com.acme.api", "Api.java"));
+		assertEquals(webSource, sourceRootLocator.locate("com.acme.web", "Web.kt"));
+		assertEquals(webTestSource, sourceRootLocator.locate("com.acme.web", "WebTest.java"));
+		assertEquals(generatedSource, sourceRootLocator.locate("com.acme.web", "Web_.java"));
+	}
+
+	@Test
+	void packagedJarIsMappedToItsProject() throws IOException {
+		final Path project = tempDir.resolve("project");
+		final Path source = createFile(project.resolve("src/main/java/Application.java"));
+		final Path jar = createFile(project.resolve("target/app.jar"));
+
+		sourceRootLocator.buildIndex(Collections.singletonList(jar));
+
+		assertEquals(source, sourceRootLocator.locate("", "Application.java"));
+	}
+
+	@Test
+	void entriesOutsideOfProjectsAreIgnored() throws IOException {
+		final Path jar = createFile(tempDir.resolve(".m2/repository/com/acme/lib/1.0/lib-1.0.jar"));
+		createFile(tempDir.resolve("src/main/java/com/acme/Foo.java"));
+
+		sourceRootLocator.buildIndex(Collections.singletonList(jar));
+
+		assertTrue(sourceRootLocator.isReady());
+		assertNull(sourceRootLocator.locate("com.acme", "Foo.java"));
+	}
+
+	@Test
+	void thisProjectIsIndexed() {
+		sourceRootLocator.buildIndex(Collections.singletonList(Paths.get("target/test-classes")));
+
+		final Path path = sourceRootLocator.locate(TraceParser.class.getPackage().getName(), "TraceParser.java");
+
+		assertTrue(path.toString().endsWith("/src/main/java/io/summerframework/bettererrorpages/TraceParser.java"), path.toString());
+	}
+
+	private static Path createFile(Path path) throws IOException {
+		Files.createDirectories(path.getParent());
+		return Files.createFile(path);
+	}
+}
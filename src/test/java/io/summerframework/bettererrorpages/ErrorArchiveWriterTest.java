@@ -0,0 +1,139 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class ErrorArchiveWriterTest {
+
+	private static final long TIMEOUT = 60_000;
+
+	private final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(TIMEOUT);
+
+	/**
+	 * Counted down when the writer starts fingerprinting
+	 */
+	private final CountDownLatch writing = new CountDownLatch(1);
+
+	/**
+	 * Keeps the writer fingerprinting until it is counted down
+	 */
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final Function<String, String> blockingFingerprinter = trace -> {
+		writing.countDown();
+		try {
+			release.await();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	};
+
+	@Test
+	void errorsAreStampedRightAwayAndFoundWhileTheyWaitToBeArchived() throws InterruptedException {
+		final ErrorArchiveWriter errorArchiveWriter = new ErrorArchiveWriter(archivedErrorPagesService, blockingFingerprinter, 10);
+		final Map<String, Object> errorAttributes = Utils.errorAttributes("trace");
+
+		errorArchiveWriter.archive("1", errorAttributes);
+		writing.await();
+
+		assertEquals(true, errorAttributes.get("archived"));
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+		assertEquals("trace", errorArchiveWriter.getErrorAttributesById("1").get().get("trace"));
+
+		release.countDown();
+		errorArchiveWriter.close();
+
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+		assertTrue(errorArchiveWriter.getErrorAttributesById("1").isPresent());
+	}
+
+	@Test
+	void oldestWaitingErrorIsDroppedWhenTheQueueIsFull() throws InterruptedException {
+		final ErrorArchiveWriter errorArchiveWriter = new ErrorArchiveWriter(archivedErrorPagesService, blockingFingerprinter, 2);
+
+		errorArchiveWriter.archive("0", Utils.errorAttributes("trace"));
+		writing.await();
+
+		errorArchiveWriter.archive("1", Utils.errorAttributes("trace"));
+		errorArchiveWriter.archive("2", Utils.errorAttributes("trace"));
+		errorArchiveWriter.archive("3", Utils.errorAttributes("trace"));
+
+		assertEquals(1, errorArchiveWriter.getDroppedCount());
+		assertEquals(2, errorArchiveWriter.getQueuedCount());
+		assertFalse(errorArchiveWriter.getErrorAttributesById("1").isPresent());
+
+		release.countDown();
+		errorArchiveWriter.close();
+
+		assertEquals(3, archivedErrorPagesService.getEntryCount());
+		assertFalse(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("3").isPresent());
+	}
+
+	@Test
+	void repeatsAreFingerprintedByTheWriter() {
+		final ErrorArchiveWriter errorArchiveWriter = new ErrorArchiveWriter(archivedErrorPagesService, Function.identity(), 10);
+
+		errorArchiveWriter.archive("1", Utils.errorAttributes("trace"));
+		errorArchiveWriter.archive("2", Utils.errorAttributes("trace"));
+		errorArchiveWriter.close();
+
+		assertEquals(1, archivedErrorPagesService.getEntryCount());
+		assertEquals(2L, archivedErrorPagesService.getErrorAttributesById("2").get().get("betterErrorPagesOccurrences"));
+	}
+
+	@Test
+	void closingWaitsForTheWriterToArchiveTheQueuedErrors() throws InterruptedException {
+		final ErrorArchiveWriter errorArchiveWriter = new ErrorArchiveWriter(archivedErrorPagesService, blockingFingerprinter, 10);
+
+		errorArchiveWriter.archive("1", Utils.errorAttributes("trace1"));
+		writing.await();
+		errorArchiveWriter.archive("2", Utils.errorAttributes("trace2"));
+
+		final Thread closing = new Thread(errorArchiveWriter::close);
+		closing.start();
+		closing.join(200);
+		assertTrue(closing.isAlive(), "close waits for the error being archived");
+
+		release.countDown();
+		closing.join();
+
+		assertEquals(0, errorArchiveWriter.getQueuedCount());
+		assertEquals(2, archivedErrorPagesService.getEntryCount());
+	}
+
+	@Test
+	void errorsAreArchivedRightAwayAfterTheWriterIsClosed() {
+		final ErrorArchiveWriter errorArchiveWriter = new ErrorArchiveWriter(archivedErrorPagesService, Function.identity(), 10);
+		errorArchiveWriter.close();
+
+		errorArchiveWriter.archive("1", Utils.errorAttributes("trace"));
+
+		assertEquals(0, errorArchiveWriter.getQueuedCount());
+		assertTrue(archivedErrorPagesService.getErrorAttributesById("1").isPresent());
+	}
+}
@@ -8,8 +8,10 @@ import org.junit.jupiter.params.provider.ValueSource;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -33,6 +35,7 @@ class ErrorContextTest {
 		final String errorLineNumber = "8";
 
 		final ErrorContext errorContext = ctor.newInstance("full trace", fullyQualifiedClassName, packageName, className, fileName, errorLineNumber);
+		errorContext.loadSourceCode(new SourcePathResolver(), Utils.sourceFileCache());
 
 		assertEquals(8, errorContext.getErrorLineNumber());
 		assertEquals(errorContext.getSourceCodePath(), errorContext.getSourceCodePath());
@@ -49,6 +52,7 @@ class ErrorContextTest {
 		ctor.setAccessible(true);
 
 		final ErrorContext errorContext = ctor.newInstance("full trace", templateName, "13");
+		errorContext.loadSourceCode(new SourcePathResolver(), Utils.sourceFileCache());
 
 		assertEquals(13, errorContext.getErrorLineNumber());
 		assertEquals("templates/products/list.html", errorContext.getFullyQualifiedClassName());
@@ -60,10 +64,31 @@ class ErrorContextTest {
 		assertTrue(errorContext.getSourceCodePath().contains("/target/test-classes/templates/products/list.html"));
 	}
 
+	@Test
+	void sourceIsNotLoadedOnConstruction() {
+		final ErrorContext errorContext = ErrorContext.fromStackTraceElement(
+				new StackTraceElement(DemoClass.class.getName(), "demo", "DemoClass.java", 8));
+
+		assertNull(errorContext.getSourceCode());
+		assertNull(errorContext.getSourceCodePath());
+	}
+
+	@Test
+	void lateLoadDoesNotReplaceTimedOutPlaceholder() {
+		final ErrorContext errorContext = ErrorContext.fromStackTraceElement(
+				new StackTraceElement(DemoClass.class.getName(), "demo", "DemoClass.java", 8));
+
+		errorContext.sourceLoadingTimedOut();
+		errorContext.loadSourceCode(new SourcePathResolver(), Utils.sourceFileCache());
+
+		assertEquals(ErrorContext.SOURCE_LOADING_TIMED_OUT, errorContext.getSourceCode());
+		assertNull(errorContext.getSourceCodePath());
+	}
+
 	@Test
 	void getSourceFilePathFromRegularClass() throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
 
-		final Method method = ErrorContext.class.getDeclaredMethod("getSourceFilePath");
+		final Method method = ErrorContext.class.getDeclaredMethod("getSourceFilePath", SourcePathResolver.class);
 		method.setAccessible(true);
 
 		final Constructor<ErrorContext> ctor = ErrorContext.class.getDeclaredConstructor(String.class, String.class, String.class, String.class, String.class, String.class);
@@ -78,15 +103,15 @@ class ErrorContextTest {
 
 		final ErrorContext errorContext = ctor.newInstance("full trace", fullyQualifiedClassName, packageName, className, fileName, errorLineNumber);
 
-		method.invoke(errorContext);
+		final Path sourceFilePath = (Path) method.invoke(errorContext, new SourcePathResolver());
 
-		assertTrue(errorContext.getSourceCodePath().contains("/src/main/java/io/summerframework/bettererrorpages/BetterErrorPagesArchiveController.java"));
+		assertTrue(sourceFilePath.toString().contains("/src/main/java/io/summerframework/bettererrorpages/BetterErrorPagesArchiveController.java"));
 	}
 
 	@Test
 	void getSourceFilePathFromTestClass() throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
 
-		final Method method = ErrorContext.class.getDeclaredMethod("getSourceFilePath");
+		final Method method = ErrorContext.class.getDeclaredMethod("getSourceFilePath", SourcePathResolver.class);
 		method.setAccessible(true);
 
 		final Constructor<ErrorContext> ctor = ErrorContext.class.getDeclaredConstructor(String.class, String.class, String.class, String.class, String.class, String.class);
@@ -101,9 +126,21 @@ class ErrorContextTest {
 
 		final ErrorContext errorContext = ctor.newInstance("full trace", fullyQualifiedClassName, packageName, className, fileName, errorLineNumber);
 
-		method.invoke(errorContext);
+		final Path sourceFilePath = (Path) method.invoke(errorContext, new SourcePathResolver());
 
-		assertTrue(errorContext.getSourceCodePath().contains("/src/test/java/com/kodgemisi/bettererrorpagesdemo/DemoClass.java"));
+		assertTrue(sourceFilePath.toString().contains("/src/test/java/com/kodgemisi/bettererrorpagesdemo/DemoClass.java"));
+	}
+
+	@Test
+	void loadSourceCodeShouldPrefixNewLineAtFirstLineWithEmptySpace() {
+
+		final Path sampleSourcePath = Utils.getSampleDirPath("sampleSourceBlankFirstLine.txt");
+
+		final ErrorContext errorContext = ErrorContext.fromStackTraceElement(
+				new StackTraceElement(DemoClass.class.getName(), "demo", "DemoClass.java", 1));
+		errorContext.loadSourceCode(Utils.sourcePathResolver(sampleSourcePath), Utils.sourceFileCache());
+
+		assertTrue(errorContext.getSourceCode().startsWith(" "), "There should be a white space instead of new line as the first character");
 	}
 
 }
\ No newline at end of file
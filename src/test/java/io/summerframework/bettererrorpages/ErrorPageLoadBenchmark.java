@@ -0,0 +1,276 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kodgemisi.bettererrorpagesdemo.FailingProductController;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Fires concurrent requests at failing endpoints of {@link FailingProductController}, for the full error page, the rest endpoint error and a
+ * template error, and reports latency percentiles, throughput, allocated bytes and degraded renders of each. The report is written as JSON so
+ * that the results of builds can be compared.</p>
+ *
+ * <p>Not a test, run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.summerframework.bettererrorpages.ErrorPageLoadBenchmark}
+ * and optionally {@code -Dload.threads=32 -Dload.requests=5000 -Dload.warmupRequests=500 -Dload.report=target/error-page-load-report.json}</p>
+ *
+ * Created on October, 2026
+ */
+class ErrorPageLoadBenchmark {
+
+	private static final int THREADS = Integer.getInteger("load.threads", 32);
+
+	private static final int REQUESTS = Integer.getInteger("load.requests", 5_000);
+
+	private static final int WARMUP_REQUESTS = Integer.getInteger("load.warmupRequests", 500);
+
+	private static final String REPORT = System.getProperty("load.report", "target/error-page-load-report.json");
+
+	private static final String HTML = "text/html";
+
+	private static final String JSON = "application/json";
+
+	//@formatter:off
+	private static final List<Scenario> SCENARIOS = Arrays.asList(
+			new Scenario("html", "/products/%d", HTML),
+			new Scenario("rest", "/api/products/%d", JSON),
+			new Scenario("template", "/products/%d/detail", HTML));
+	//@formatter:on
+
+	public static void main(String[] args) throws Exception {
+
+		//@formatter:off
+		final ConfigurableApplicationContext applicationContext = new SpringApplicationBuilder(TestConfiguration.class, LoadTestApplication.class)
+				.properties("spring.profiles.active=dev",
+							"better-error-pages.package-name=com.kodgemisi",
+							"server.port=0",
+							"logging.level.root=warn")
+				.run(args);
+		//@formatter:on
+
+		final String baseUrl = "http://localhost:" + applicationContext.getEnvironment().getProperty("local.server.port");
+		final RenderBulkhead renderBulkhead = applicationContext.getBean(RenderBulkhead.class);
+		final List<Thread> clientThreads = new CopyOnWriteArrayList<>();
+		final AtomicInteger clientThreadCount = new AtomicInteger();
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+			final Thread thread = new Thread(runnable, "load-test-client-" + clientThreadCount.incrementAndGet());
+			clientThreads.add(thread);
+			return thread;
+		});
+
+		final Map<String, Object> report = new LinkedHashMap<>();
+		report.put("timestamp", System.currentTimeMillis());
+		report.put("javaVersion", System.getProperty("java.version"));
+		report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+		report.put("threads", THREADS);
+		report.put("requests", REQUESTS);
+		report.put("warmupRequests", WARMUP_REQUESTS);
+
+		final List<Map<String, Object>> results = new ArrayList<>();
+		try {
+			for (Scenario scenario : SCENARIOS) {
+				run(executor, baseUrl, scenario, WARMUP_REQUESTS);
+
+				final long degradedBefore = renderBulkhead.getDegradedRenderCount();
+				final long allocatedBefore = allocatedBytes();
+				final long clientAllocatedBefore = allocatedBytes(clientThreads);
+				final long start = System.nanoTime();
+
+				final Run run = run(executor, baseUrl, scenario, REQUESTS);
+
+				final long elapsed = System.nanoTime() - start;
+				final long allocated = allocatedBytes() - allocatedBefore - (allocatedBytes(clientThreads) - clientAllocatedBefore);
+				results.add(result(scenario, run, elapsed, allocated, renderBulkhead.getDegradedRenderCount() - degradedBefore));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			applicationContext.close();
+		}
+		report.put("scenarios", results);
+
+		final Path reportPath = Paths.get(REPORT).toAbsolutePath();
+		Files.createDirectories(reportPath.getParent());
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportPath.toFile(), report);
+
+		System.out.printf("%d requests of %d threads per scenario, report is written to %s%n", REQUESTS, THREADS, reportPath);
+		for (Map<String, Object> result : results) {
+			System.out.printf("%-10s %10.0f req/s p50 %8.2f ms p99 %8.2f ms p999 %8.2f ms %,14d B/req %6d degraded%n", result.get("scenario"),
+							  result.get("throughputPerSecond"), result.get("p50Millis"), result.get("p99Millis"), result.get("p999Millis"),
+							  result.get("allocatedBytesPerRequest"), result.get("degradedRenders"));
+		}
+	}
+
+	private static Run run(ExecutorService executor, String baseUrl, Scenario scenario, int requests) throws InterruptedException {
+		final long[] latencies = new long[requests];
+		final AtomicInteger failures = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(requests);
+
+		for (int i = 0; i < requests; i++) {
+			final int request = i;
+			executor.execute(() -> {
+				try {
+					final long start = System.nanoTime();
+					final int status = get(baseUrl + String.format(scenario.path, request), scenario.accept);
+					latencies[request] = System.nanoTime() - start;
+
+					if (status != 500) {
+						failures.incrementAndGet();
+					}
+				}
+				catch (IOException e) {
+					latencies[request] = Long.MAX_VALUE;
+					failures.incrementAndGet();
+				}
+				finally {
+					done.countDown();
+				}
+			});
+		}
+
+		done.await();
+		return new Run(latencies, failures.get());
+	}
+
+	/**
+	 * @return status of the response, whose body is read fully like a browser would
+	 */
+	private static int get(String url, String accept) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestProperty("Accept", accept);
+
+		final int status = connection.getResponseCode();
+		try (InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+			final byte[] buffer = new byte[8192];
+			while (body != null && body.read(buffer) >= 0) {
+				// Draining the body keeps the connection alive for the next request
+			}
+		}
+		return status;
+	}
+
+	private static Map<String, Object> result(Scenario scenario, Run run, long elapsedNanos, long allocatedBytes, long degradedRenders) {
+		final long[] latencies = run.latencies.clone();
+		Arrays.sort(latencies);
+
+		final Map<String, Object> result = new LinkedHashMap<>();
+		result.put("scenario", scenario.name);
+		result.put("path", scenario.path);
+		result.put("accept", scenario.accept);
+		result.put("requests", latencies.length);
+		result.put("failures", run.failures);
+		result.put("throughputPerSecond", latencies.length / (elapsedNanos / 1e9));
+		result.put("p50Millis", percentile(latencies, 0.5));
+		result.put("p99Millis", percentile(latencies, 0.99));
+		result.put("p999Millis", percentile(latencies, 0.999));
+		result.put("maxMillis", percentile(latencies, 1));
+		result.put("allocatedBytes", allocatedBytes);
+		result.put("allocatedBytesPerRequest", allocatedBytes / latencies.length);
+		result.put("degradedRenders", degradedRenders);
+		return result;
+	}
+
+	/**
+	 * @param sortedLatencies in nanoseconds, failed requests are the last ones with {@link Long#MAX_VALUE}
+	 */
+	private static double percentile(long[] sortedLatencies, double percentile) {
+		final int index = Math.max(0, (int) Math.ceil(percentile * sortedLatencies.length) - 1);
+		return sortedLatencies[index] == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : sortedLatencies[index] / 1e6;
+	}
+
+	/**
+	 * @return bytes allocated by the live threads of the JVM, the server threads live as long as the application
+	 */
+	private static long allocatedBytes() {
+		final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return sum(threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds()));
+	}
+
+	private static long allocatedBytes(List<Thread> threads) {
+		final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return sum(threadMXBean.getThreadAllocatedBytes(threads.stream().mapToLong(Thread::getId).toArray()));
+	}
+
+	/**
+	 * Threads which are not alive anymore are reported with -1
+	 */
+	private static long sum(long[] allocatedBytes) {
+		long sum = 0;
+		for (long bytes : allocatedBytes) {
+			sum += Math.max(bytes, 0);
+		}
+		return sum;
+	}
+
+	@Configuration
+	@EnableAutoConfiguration
+	@Import(FailingProductController.class)
+	static class LoadTestApplication {
+
+	}
+
+	private static final class Scenario {
+
+		private final String name;
+
+		/**
+		 * Formatted with the index of the request so that each request is for another product
+		 */
+		private final String path;
+
+		private final String accept;
+
+		private Scenario(String name, String path, String accept) {
+			this.name = name;
+			this.path = path;
+			this.accept = accept;
+		}
+	}
+
+	private static final class Run {
+
+		private final long[] latencies;
+
+		private final int failures;
+
+		private Run(long[] latencies, int failures) {
+			this.latencies = latencies;
+			this.failures = failures;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Created on October, 2026
+ */
+class FrameDictionaryTest {
+
+	private final FrameDictionary frameDictionary = new FrameDictionary();
+
+	@ParameterizedTest
+	@ValueSource(strings = { "", "\n", "\n\n", "single line", "first\nsecond", "first\n\nthird\n" })
+	void tracesAreRebuiltAsTheyAreInterned(String trace) {
+		assertEquals(trace, FrameDictionary.rebuild(frameDictionary.intern(trace)));
+	}
+
+	@Test
+	void linesAreCountedOnce() {
+		frameDictionary.intern("first\nshared");
+		final long bytes = frameDictionary.getBytes();
+
+		frameDictionary.intern("first\nshared");
+
+		assertEquals(2, frameDictionary.getFrameCount());
+		assertEquals(bytes, frameDictionary.getBytes());
+	}
+
+	@Test
+	void linesAreRemovedWhenTheyAreReleasedByAllTraces() {
+		final FrameDictionary.Frame[] first = frameDictionary.intern("first\nshared\nshared");
+		final FrameDictionary.Frame[] second = frameDictionary.intern("second\nshared");
+
+		frameDictionary.release(first);
+		assertEquals(2, frameDictionary.getFrameCount());
+
+		frameDictionary.release(second);
+		assertEquals(0, frameDictionary.getFrameCount());
+		assertEquals(0, frameDictionary.getBytes());
+	}
+}
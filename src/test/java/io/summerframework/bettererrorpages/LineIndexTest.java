@@ -0,0 +1,87 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Created on October, 2026
+ */
+class LineIndexTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void lineCountIsConsistentWithReadingLines() {
+		assertEquals(0, lineCount(""));
+		assertEquals(1, lineCount("a"));
+		assertEquals(1, lineCount("a\n"));
+		assertEquals(2, lineCount("a\n\n"));
+		assertEquals(2, lineCount("a\r\nb"));
+		assertEquals(2, lineCount("a\rb\r"));
+		assertEquals(3, lineCount("\n\r\n\r"));
+		assertEquals(0, lineCount("\uFEFF"));
+	}
+
+	@Test
+	void lineStartsSkipTerminatorsAndByteOrderMark() {
+		final byte[] content = "\uFEFFab\r\ncd\ne".getBytes(StandardCharsets.UTF_8);
+		final LineIndex lineIndex = LineIndex.of(content);
+
+		assertArrayEquals(new long[] { 3, 7, 10, 11 }, lineStarts(lineIndex));
+	}
+
+	@Test
+	void indexFromChannelIsIdenticalToIndexFromBytes() throws IOException {
+		final StringBuilder content = new StringBuilder("\uFEFF");
+		for (int i = 0; i < 10_000; i++) {
+			content.append("line ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+		}
+		final byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+		final Path path = Files.write(tempDir.resolve("Big.java"), bytes);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			assertArrayEquals(lineStarts(LineIndex.of(bytes)), lineStarts(LineIndex.of(channel)));
+		}
+	}
+
+	@Test
+	void utf16ContentIsNotIndexed() {
+		assertNull(LineIndex.of("a\nb".getBytes(StandardCharsets.UTF_16)));
+	}
+
+	private static int lineCount(String content) {
+		return LineIndex.of(content.getBytes(StandardCharsets.UTF_8)).getLineCount();
+	}
+
+	private static long[] lineStarts(LineIndex lineIndex) {
+		final long[] lineStarts = new long[lineIndex.getLineCount() + 1];
+		for (int i = 0; i < lineStarts.length; i++) {
+			lineStarts[i] = lineIndex.getLineStart(i);
+		}
+		return lineStarts;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class MappedErrorLogTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void attributesAreReadAsTheyAreWritten() throws IOException {
+		final MappedErrorLog errorLog = new MappedErrorLog(tempDir);
+		final Map<String, Object> attributes = errorAttributes();
+
+		final MappedErrorLog.Location location = errorLog.append("1", 42, attributes);
+
+		assertEquals(attributes, errorLog.read(location));
+	}
+
+	@Test
+	void valuesOfOtherTypesAreWrittenAsStrings() throws IOException {
+		final MappedErrorLog errorLog = new MappedErrorLog(tempDir);
+		final Map<String, Object> attributes = new HashMap<>();
+		attributes.put("errors", Collections.singletonList(new StringBuilder("must not be null")));
+
+		final MappedErrorLog.Location location = errorLog.append("1", 42, attributes);
+
+		assertEquals(Collections.singletonList("must not be null"), errorLog.read(location).get("errors"));
+	}
+
+	@Test
+	void recordsAreRecoveredInOrder() throws IOException {
+		final MappedErrorLog errorLog = new MappedErrorLog(tempDir, 1024);
+		for (int i = 0; i < 10; i++) {
+			errorLog.append(String.valueOf(i), i, errorAttributes());
+		}
+		errorLog.close();
+		assertTrue(errorLog.getSegmentCount() > 1);
+
+		final MappedErrorLog recovered = new MappedErrorLog(tempDir, 1024);
+		final List<String> ids = new ArrayList<>();
+		final List<Long> archivedAts = new ArrayList<>();
+		recovered.recover((id, archivedAt, location) -> {
+			ids.add(id);
+			archivedAts.add(archivedAt);
+			try {
+				assertEquals(errorAttributes(), recovered.read(location));
+			}
+			catch (IOException e) {
+				throw new AssertionError(e);
+			}
+		});
+
+		assertEquals(Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"), ids);
+		assertEquals(Long.valueOf(9), archivedAts.get(9));
+	}
+
+	@Test
+	void corruptedRecordEndsTheSegment() throws IOException {
+		final MappedErrorLog errorLog = new MappedErrorLog(tempDir);
+		final MappedErrorLog.Location first = errorLog.append("1", 1, errorAttributes());
+		final MappedErrorLog.Location second = errorLog.append("2", 2, errorAttributes());
+		errorLog.close();
+
+		final Path segmentFile = Files.list(tempDir).findFirst().get();
+		try (RandomAccessFile file = new RandomAccessFile(segmentFile.toFile(), "rw")) {
+			// Last byte of the second record
+			final long offset = first.getLength() + second.getLength() - 1;
+			file.seek(offset);
+			final int value = file.read();
+			file.seek(offset);
+			file.write(value + 1);
+		}
+
+		final List<String> ids = new ArrayList<>();
+		new MappedErrorLog(tempDir).recover((id, archivedAt, location) -> ids.add(id));
+
+		assertEquals(Collections.singletonList("1"), ids);
+	}
+
+	@Test
+	void emptySegmentsAreDeleted() throws IOException {
+		final MappedErrorLog errorLog = new MappedErrorLog(tempDir, 1024);
+		final List<MappedErrorLog.Location> locations = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			locations.add(errorLog.append(String.valueOf(i), i, errorAttributes()));
+		}
+		final int segmentCount = errorLog.getSegmentCount();
+
+		// Releases all but the last one
+		for (int i = 0; i < locations.size() - 1; i++) {
+			errorLog.release(locations.get(i));
+		}
+		errorLog.deleteEmptySegments();
+
+		assertEquals(1, errorLog.getSegmentCount());
+		assertEquals(1, Files.list(tempDir).count());
+		assertTrue(segmentCount > 1);
+	}
+
+	@Test
+	void copiedRecordsLeaveTheirSegmentSparse() throws IOException {
+		final MappedErrorLog errorLog = new MappedErrorLog(tempDir, 1024);
+		errorLog.append("1", 1, errorAttributes());
+		errorLog.append("2", 2, errorAttributes());
+		errorLog.append("3", 3, errorAttributes());
+		errorLog.close();
+
+		final MappedErrorLog recovered = new MappedErrorLog(tempDir, 1024);
+		final List<MappedErrorLog.Location> locations = new ArrayList<>();
+		recovered.recover((id, archivedAt, location) -> locations.add(location));
+		assertFalse(recovered.hasSparseSegments());
+
+		recovered.release(locations.get(0));
+		assertFalse(recovered.hasSparseSegments());
+
+		recovered.release(locations.get(1));
+		assertTrue(recovered.hasSparseSegments());
+		assertTrue(recovered.isInSparseSegment(locations.get(2)));
+
+		final MappedErrorLog.Location copied = recovered.copy(locations.get(2));
+		recovered.release(locations.get(2));
+		recovered.deleteEmptySegments();
+
+		assertEquals(1, recovered.getSegmentCount());
+		assertEquals(errorAttributes(), recovered.read(copied));
+	}
+
+	/**
+	 * Values of all the types the log writes, a stamped error with a null path and a message which is not ASCII
+	 */
+	private static Map<String, Object> errorAttributes() {
+		final Map<String, Object> errorAttributes = Utils.errorAttributes(
+				"java.lang.IllegalStateException: Demo error here.\n\tat com.kodgemisi.demo.Foo.bar(Foo.java:42)");
+		errorAttributes.put("timestamp", new Date(1000));
+		errorAttributes.put("error", "Internal Server Error");
+		errorAttributes.put("message", "Demo error here. ğüşıöç");
+		errorAttributes.put("path", null);
+		errorAttributes.put("archived", true);
+		errorAttributes.put("betterErrorPagesTimestampMs", 1000L);
+		return errorAttributes;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import com.kodgemisi.bettererrorpagesdemo.DemoClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Created on October, 2026
+ */
+class MicrometerBetterErrorPagesMetricsTest {
+
+	@TempDir
+	Path tempDir;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final MicrometerBetterErrorPagesMetrics metrics = new MicrometerBetterErrorPagesMetrics(meterRegistry);
+
+	@Test
+	void archiveIsTimedAndItsSizeIsGauged() {
+		final ArchivedErrorPagesService archivedErrorPagesService = new ArchivedErrorPagesService(60_000, ArchivedErrorPagesService.DEFAULT_MAX_ENTRIES,
+																								  ArchivedErrorPagesService.DEFAULT_MAX_BYTES, null, metrics);
+		final SourceFileCache sourceFileCache = new SourceFileCache(SourceFileCache.DEFAULT_MAX_BYTES, metrics);
+		metrics.bindGauges(archivedErrorPagesService, new ErrorArchiveWriter(archivedErrorPagesService, trace -> null, 10), new RenderBulkhead(1, 0),
+						   new TraceAnalysisCache(1), sourceFileCache);
+
+		archivedErrorPagesService.putErrorTrace("1", Utils.errorAttributes(
+				"java.lang.IllegalStateException\n\tat com.kodgemisi.demo.ProductService.find(ProductService.java:12)"));
+		archivedErrorPagesService.getErrorAttributesById("1");
+		archivedErrorPagesService.getErrorAttributesById("2");
+
+		assertEquals(1, meterRegistry.get("better.error.pages.archive.put").timer().count());
+		assertEquals(1, meterRegistry.get("better.error.pages.archive.get").tags("found", "true").timer().count());
+		assertEquals(1, meterRegistry.get("better.error.pages.archive.get").tags("found", "false").timer().count());
+		assertEquals(1, meterRegistry.get("better.error.pages.archive.entries").gauge().value());
+		assertEquals(archivedErrorPagesService.getCurrentBytes(), (long) meterRegistry.get("better.error.pages.archive.bytes").gauge().value());
+	}
+
+	@Test
+	void sourceReadsAreTaggedWithTheirFileTypesAndCacheResults() throws IOException {
+		final Path source = Files.write(tempDir.resolve("ProductService.java"), Arrays.asList("class ProductService {", "}"));
+		final Path template = Files.write(tempDir.resolve("products.html"), Arrays.asList("<html>", "</html>"));
+		final SourceFileCache sourceFileCache = new SourceFileCache(SourceFileCache.DEFAULT_MAX_BYTES, metrics);
+
+		sourceFileCache.snippet(source, 0, 2);
+		sourceFileCache.snippet(source, 0, 2);
+		sourceFileCache.snippet(template, 0, 2);
+
+		assertEquals(1, meterRegistry.get("better.error.pages.source.read").tags("type", "JAVA", "cache", "miss").timer().count());
+		assertEquals(1, meterRegistry.get("better.error.pages.source.read").tags("type", "JAVA", "cache", "hit").timer().count());
+		assertEquals(1, meterRegistry.get("better.error.pages.source.read").tags("type", "HTML", "cache", "miss").timer().count());
+	}
+
+	@Test
+	void sourceResolutionsAreTaggedWithTheirFileTypes() throws IOException {
+		final SourcePathResolver sourcePathResolver = new SourcePathResolver(null, metrics);
+
+		sourcePathResolver.resolveClass(DemoClass.class.getName(), "DemoClass.java");
+		sourcePathResolver.resolveTemplate("templates/products/list.html");
+
+		assertEquals(1, meterRegistry.get("better.error.pages.source.resolve").tags("type", "JAVA").timer().count());
+		assertEquals(1, meterRegistry.get("better.error.pages.source.resolve").tags("type", "HTML").timer().count());
+	}
+}
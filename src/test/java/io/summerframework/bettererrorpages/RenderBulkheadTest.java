@@ -0,0 +1,74 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class RenderBulkheadTest {
+
+	private final RenderBulkhead renderBulkhead = new RenderBulkhead(1, 10);
+
+	@Test
+	void requestsOverTheLimitAreDegraded() {
+		final MockHttpServletRequest first = new MockHttpServletRequest();
+
+		assertTrue(renderBulkhead.tryAcquire(first));
+		assertFalse(renderBulkhead.tryAcquire(new MockHttpServletRequest()));
+
+		assertEquals(1, renderBulkhead.getActiveRenders());
+		assertEquals(1, renderBulkhead.getFullRenderCount());
+		assertEquals(1, renderBulkhead.getDegradedRenderCount());
+	}
+
+	@Test
+	void permitIsReleasedOnceWhenTheRequestIsCompleted() throws Exception {
+		final MockHttpServletRequest first = new MockHttpServletRequest();
+		renderBulkhead.tryAcquire(first);
+
+		renderBulkhead.afterCompletion(first, new MockHttpServletResponse(), new Object(), null);
+		renderBulkhead.afterCompletion(first, new MockHttpServletResponse(), new Object(), null);
+
+		assertEquals(0, renderBulkhead.getActiveRenders());
+		assertTrue(renderBulkhead.tryAcquire(new MockHttpServletRequest()));
+		assertFalse(renderBulkhead.tryAcquire(new MockHttpServletRequest()));
+	}
+
+	@Test
+	void nestedDispatchesOfARequestShareItsPermit() {
+		final MockHttpServletRequest request = new MockHttpServletRequest();
+
+		assertTrue(renderBulkhead.tryAcquire(request));
+		assertTrue(renderBulkhead.tryAcquire(request));
+
+		assertEquals(1, renderBulkhead.getActiveRenders());
+		assertEquals(1, renderBulkhead.getFullRenderCount());
+	}
+
+	@Test
+	void completingARequestWithoutAPermitReleasesNothing() throws Exception {
+		renderBulkhead.tryAcquire(new MockHttpServletRequest());
+
+		renderBulkhead.afterCompletion(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object(), null);
+
+		assertEquals(1, renderBulkhead.getActiveRenders());
+	}
+}
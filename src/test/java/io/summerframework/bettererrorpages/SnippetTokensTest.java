@@ -0,0 +1,71 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import com.kodgemisi.bettererrorpagesdemo.DemoClass;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Created on October, 2026
+ */
+class SnippetTokensTest {
+
+	private final SnippetTokens snippetTokens = new SnippetTokens(new byte[32]);
+
+	@Test
+	void tokensAreResolvedToTheirFrames() {
+		final ErrorContext errorContext = ErrorContext.fromStackTraceElement(
+				new StackTraceElement(DemoClass.class.getName() + "$Inner", "demo", "DemoClass.java", 8));
+
+		final String token = snippetTokens.tokenOf(errorContext);
+		final ErrorContext resolved = snippetTokens.errorContextOf(token);
+
+		assertTrue(token.matches("[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]+"), "URL safe");
+		assertEquals(errorContext.getId(), resolved.getId());
+		assertEquals(errorContext.getPackageName(), resolved.getPackageName());
+		assertEquals(errorContext.getClassName(), resolved.getClassName());
+		assertEquals("DemoClass.java", resolved.getFileName());
+		assertNull(resolved.getSourceCode());
+
+		resolved.loadSourceCode(new SourcePathResolver(), Utils.sourceFileCache());
+		assertTrue(resolved.getSourceCode().contains("class DemoClass {"));
+	}
+
+	@Test
+	void templateTokensAreResolvedToTheirTemplates() {
+		final ErrorContext errorContext = ErrorContext.of(ErrorContext.FileType.HTML, "templates/products/list.html", "templates/products/list.html", 13);
+
+		final ErrorContext resolved = snippetTokens.errorContextOf(snippetTokens.tokenOf(errorContext));
+
+		assertEquals(ErrorContext.FileType.HTML, resolved.getFileType());
+		assertEquals("templates/products/list.html", resolved.getFileName());
+		assertEquals(13, resolved.getErrorLineNumber());
+	}
+
+	@Test
+	void forgedTokensAreRefused() {
+		final ErrorContext errorContext = ErrorContext.of(ErrorContext.FileType.HTML, "templates/products/list.html", "templates/products/list.html", 13);
+		final String token = snippetTokens.tokenOf(errorContext);
+		final String signature = token.substring(token.indexOf('.'));
+		final String forgedFrame = Base64.getUrlEncoder().withoutPadding().encodeToString("HTML\n../../etc/passwd\n../../etc/passwd\n1".getBytes());
+
+		assertNull(snippetTokens.errorContextOf(forgedFrame + signature));
+		assertNull(new SnippetTokens(new byte[] { 1 }).errorContextOf(token), "token of another key");
+		assertNull(snippetTokens.errorContextOf("not a token"));
+		assertNull(snippetTokens.errorContextOf("%%%.%%%"));
+	}
+}
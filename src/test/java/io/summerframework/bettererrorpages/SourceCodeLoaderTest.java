@@ -0,0 +1,144 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import com.kodgemisi.bettererrorpagesdemo.DemoClass;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class SourceCodeLoaderTest {
+
+	@Test
+	void sourcesAreLoadedInParallel() {
+		final CyclicBarrier bothLoadsStarted = new CyclicBarrier(2);
+		final AtomicBoolean loadedOneByOne = new AtomicBoolean();
+
+		// Each load waits for the other one to start, which only happens when they run at the same time
+		final ExecutorService executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+
+			@Override
+			protected void beforeExecute(Thread thread, Runnable load) {
+				try {
+					bothLoadsStarted.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+					loadedOneByOne.set(true);
+				}
+			}
+		};
+		final SourceCodeLoader sourceCodeLoader = new SourceCodeLoader(executor, new SourcePathResolver(), Utils.sourceFileCache(), 10_000, -1);
+		final List<ErrorContext> errorContexts = new ArrayList<>();
+		errorContexts.add(errorContext(8));
+		errorContexts.add(errorContext(3));
+
+		sourceCodeLoader.load(errorContexts);
+		sourceCodeLoader.close();
+
+		assertFalse(loadedOneByOne.get(), "loads overlap");
+
+		for (ErrorContext errorContext : errorContexts) {
+			assertTrue(errorContext.getSourceCode().contains("class DemoClass {"));
+			assertNotNull(errorContext.getSourceCodePath());
+		}
+	}
+
+	@Test
+	void sourcesNotLoadedBeforeTheDeadlineAreShownAsTimedOut() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final SourceCodeLoader sourceCodeLoader = new SourceCodeLoader(executor, new SourcePathResolver(), Utils.sourceFileCache(), 50, -1);
+		final ErrorContext errorContext = errorContext(8);
+
+		// Keeps the only thread busy so the load waits in the queue
+		executor.submit(() -> {
+			release.await();
+			return null;
+		});
+
+		sourceCodeLoader.load(Collections.singletonList(errorContext));
+
+		assertEquals(ErrorContext.SOURCE_LOADING_TIMED_OUT, errorContext.getSourceCode());
+
+		// The late load completes without replacing the placeholder
+		release.countDown();
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		assertEquals(ErrorContext.SOURCE_LOADING_TIMED_OUT, errorContext.getSourceCode());
+		assertNull(errorContext.getSourceCodePath());
+	}
+
+	@Test
+	void onlyTheFirstSnippetsArePrefetched() {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		final List<ErrorContext> errorContexts = new ArrayList<>();
+		errorContexts.add(errorContext(8));
+		errorContexts.add(errorContext(3));
+
+		new SourceCodeLoader(executor, new SourcePathResolver(), Utils.sourceFileCache(), 10_000, 1).prefetch(errorContexts);
+
+		assertNotNull(errorContexts.get(0).getSourceCode());
+		assertNull(errorContexts.get(1).getSourceCode(), "fetched by its token when it is shown");
+
+		new SourceCodeLoader(executor, new SourcePathResolver(), Utils.sourceFileCache(), 10_000, -1).prefetch(errorContexts);
+		executor.shutdown();
+
+		assertNotNull(errorContexts.get(1).getSourceCode());
+	}
+
+	@Test
+	void rejectedLoadsAreShownAsTimedOut() {
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.shutdown();
+		final ErrorContext errorContext = errorContext(8);
+
+		new SourceCodeLoader(executor, new SourcePathResolver(), Utils.sourceFileCache(), 10_000, -1).load(Collections.singletonList(errorContext));
+
+		assertEquals(ErrorContext.SOURCE_LOADING_TIMED_OUT, errorContext.getSourceCode());
+	}
+
+	@Test
+	void closingTheLoaderStopsItsThreads() throws InterruptedException {
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		new SourceCodeLoader(executor, new SourcePathResolver(), Utils.sourceFileCache(), 10_000, -1).close();
+
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	private static ErrorContext errorContext(int lineNumber) {
+		return ErrorContext.fromStackTraceElement(new StackTraceElement(DemoClass.class.getName(), "demo", "DemoClass.java", lineNumber));
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Created on October, 2026
+ */
+class SourceFileCacheTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void secondAccessIsServedFromCache() throws IOException {
+		final SourceFileCache sourceFileCache = new SourceFileCache(1024);
+		final Path source = write("Source.java", "line0\nline1\nline2\n");
+
+		assertEquals("line1", sourceFileCache.snippet(source, 1, 2));
+		assertEquals("line0\nline1", sourceFileCache.snippet(source, 0, 2));
+
+		assertEquals(1, sourceFileCache.getMissCount());
+		assertEquals(1, sourceFileCache.getHitCount());
+		assertEquals(1, sourceFileCache.getEntryCount());
+	}
+
+	@Test
+	void linesAreCountedFromTheCachedLineIndex() throws IOException {
+		final SourceFileCache sourceFileCache = new SourceFileCache(1024);
+		final Path source = write("Source.java", "line0\nline1\nline2\n");
+
+		assertEquals("line1", sourceFileCache.snippet(source, 1, 2));
+		assertEquals(3, sourceFileCache.lineCount(source));
+		assertEquals("line2", sourceFileCache.snippet(source, 2, 10));
+
+		assertEquals(1, sourceFileCache.getMissCount());
+		assertEquals(2, sourceFileCache.getHitCount());
+	}
+
+	@Test
+	void modifiedFileIsReloaded() throws IOException {
+		final SourceFileCache sourceFileCache = new SourceFileCache(1024);
+		final Path source = write("Source.java", "old\n");
+
+		assertEquals("old", sourceFileCache.snippet(source, 0, 1));
+
+		write("Source.java", "new\n");
+		Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+
+		assertEquals("new", sourceFileCache.snippet(source, 0, 1));
+		assertEquals(2, sourceFileCache.getMissCount());
+		assertEquals(1, sourceFileCache.getEntryCount());
+	}
+
+	@Test
+	void leastRecentlyUsedFileIsEvictedWhenSizeIsExceeded() throws IOException {
+		final SourceFileCache sourceFileCache = new SourceFileCache(150);
+		final Path first = write("First.java", "0123456789012345678\n");
+		final Path second = write("Second.java", "0123456789012345678\n");
+		final Path third = write("Third.java", "0123456789012345678\n");
+
+		sourceFileCache.snippet(first, 0, 1);
+		sourceFileCache.snippet(second, 0, 1);
+		sourceFileCache.snippet(first, 0, 1);// makes second the least recently used
+		sourceFileCache.snippet(third, 0, 1);
+		sourceFileCache.setMaxBytes(80);
+
+		assertEquals(2, sourceFileCache.getEntryCount());
+		assertEquals(2 * (20 + 2 * Long.BYTES), sourceFileCache.getCurrentBytes(), "content and line index of 2 files");
+		assertEquals(1, sourceFileCache.getEvictionCount());
+
+		sourceFileCache.snippet(first, 0, 1);
+		sourceFileCache.snippet(third, 0, 1);
+		assertEquals(3, sourceFileCache.getHitCount());
+	}
+
+	@Test
+	void onlyLineIndexOfBigFilesIsCached() throws IOException {
+		final SourceFileCache sourceFileCache = new SourceFileCache(64);
+		final Path source = write("Big.java", "0123456789\r\nabcdefghij\r\n0123456789\r\n");
+
+		assertEquals("abcdefghij", sourceFileCache.snippet(source, 1, 2));
+		assertEquals("abcdefghij\n0123456789", sourceFileCache.snippet(source, 1, 10));
+		assertEquals(1, sourceFileCache.getEntryCount());
+		assertEquals(4 * Long.BYTES, sourceFileCache.getCurrentBytes(), "3 line starts and the end of file");
+		assertEquals(1, sourceFileCache.getHitCount());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "sampleSource.txt", "sampleSourceBlankFirstLine.txt", "templates/products/list.html" })
+	void snippetIsIdenticalToStreamingReader(String sampleFile) throws IOException {
+		final Path path = new ClassPathResource(sampleFile).getFile().toPath();
+		final SourceFileCache inMemory = new SourceFileCache(1024 * 1024);
+		final SourceFileCache indexOnly = new SourceFileCache(64);
+
+		for (int errorLineNumber = 0; errorLineNumber <= 80; errorLineNumber++) {
+			final int firstLineNumber = Math.max(errorLineNumber - 6, 0);
+			final int lastLineNumber = errorLineNumber + 5;
+			final String expected = SourceSnippetReader.read(path, firstLineNumber, lastLineNumber);
+
+			assertEquals(expected, inMemory.snippet(path, firstLineNumber, lastLineNumber), "in memory snippet around line " + errorLineNumber);
+			assertEquals(expected, indexOnly.snippet(path, firstLineNumber, lastLineNumber), "index only snippet around line " + errorLineNumber);
+		}
+	}
+
+	private Path write(String fileName, String content) throws IOException {
+		return Files.write(tempDir.resolve(fileName), content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import com.kodgemisi.bettererrorpagesdemo.DemoClass;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class SourcePathResolverTest {
+
+	private final SourcePathResolver sourcePathResolver = new SourcePathResolver();
+
+	@Test
+	void testClassIsResolvedToTestSources() throws IOException {
+		final Path path = sourcePathResolver.resolveClass(DemoClass.class.getName(), "DemoClass.java");
+
+		assertTrue(path.toString().endsWith("/src/test/java/com/kodgemisi/bettererrorpagesdemo/DemoClass.java"), path.toString());
+		assertSame(path, sourcePathResolver.resolveClass(DemoClass.class.getName(), "DemoClass.java"), "result is memoized");
+	}
+
+	@Test
+	void nonPublicClassIsResolvedToItsFileName() throws IOException {
+		final Path path = sourcePathResolver.resolveClass(TraceParser.class.getName(), "SomeOtherFile.java");
+
+		assertTrue(path.toString().endsWith("/src/main/java/io/summerframework/bettererrorpages/SomeOtherFile.java"), path.toString());
+	}
+
+	@Test
+	void sourceRootLocatorIsConsultedBeforeClasspath() throws IOException {
+		final Path located = Paths.get("/elsewhere/com/kodgemisi/bettererrorpagesdemo/DemoClass.java");
+		final SourcePathResolver sourcePathResolver = new SourcePathResolver(
+				(packageName, fileName) -> packageName.equals("com.kodgemisi.bettererrorpagesdemo") ? located : null);
+
+		assertSame(located, sourcePathResolver.resolveClass(DemoClass.class.getName(), "DemoClass.java"));
+
+		final Path path = sourcePathResolver.resolveClass(TraceParser.class.getName(), "TraceParser.java");
+		assertTrue(path.toString().endsWith("/src/main/java/io/summerframework/bettererrorpages/TraceParser.java"), path.toString());
+	}
+
+	@Test
+	void templateIsResolvedFromClasspath() throws IOException {
+		final Path path = sourcePathResolver.resolveTemplate("templates/products/list.html");
+
+		assertTrue(path.toString().endsWith("/target/test-classes/templates/products/list.html"), path.toString());
+	}
+
+	@Test
+	void unresolvableClassIsReportedAfterClearing() {
+		assertThrows(IOException.class, () -> sourcePathResolver.resolveClass("com.kodgemisi.NoSuchClass", "NoSuchClass.java"));
+
+		sourcePathResolver.clear();
+
+		assertThrows(IOException.class, () -> sourcePathResolver.resolveClass("com.kodgemisi.NoSuchClass", "NoSuchClass.java"));
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Created on October, 2026
+ */
+class SourceSnippetReaderTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = { "sampleSource.txt", "sampleSourceBlankFirstLine.txt" })
+	void snippetIsIdenticalToReadingAllLines(String sampleFile) throws IOException {
+
+		final Path path = new ClassPathResource(sampleFile).getFile().toPath();
+		final int lineCount = Files.readAllLines(path).size();
+
+		for (int errorLineNumber = 0; errorLineNumber <= lineCount + 10; errorLineNumber++) {
+			final int firstLineNumber = Math.max(errorLineNumber - 6, 0);
+			final int lastLineNumber = errorLineNumber + 5;
+
+			assertEquals(readAllLinesAndFilter(path, firstLineNumber, lastLineNumber), SourceSnippetReader.read(path, firstLineNumber, lastLineNumber),
+						 "snippet around line " + errorLineNumber);
+		}
+	}
+
+	@Test
+	void allLineTerminatorsAreSupported() throws IOException {
+		final String source = "zero\r\none\rtwo\n\r\nfour\n";
+
+		assertEquals("one\ntwo\n\nfour", SourceSnippetReader.read(new StringReader(source), 1, 10));
+		assertEquals("two\n", SourceSnippetReader.read(new StringReader(source), 2, 4));
+		assertEquals("", SourceSnippetReader.read(new StringReader(source), 5, 10));
+	}
+
+	@Test
+	void utf8ByteOrderMarkIsSkipped() throws IOException {
+		final byte[] bom = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+		final byte[] content = "şeker\nçay".getBytes(StandardCharsets.UTF_8);
+		final byte[] source = new byte[bom.length + content.length];
+		System.arraycopy(bom, 0, source, 0, bom.length);
+		System.arraycopy(content, 0, source, bom.length, content.length);
+
+		try (Reader reader = SourceSnippetReader.newReader(new ByteArrayInputStream(source), StandardCharsets.ISO_8859_1)) {
+			assertEquals("şeker\nçay", SourceSnippetReader.read(reader, 0, 5));
+		}
+	}
+
+	@Test
+	void utf16ByteOrderMarkIsDetected() throws IOException {
+		final byte[] source = "first\nsecond".getBytes(StandardCharsets.UTF_16);// Java writes a big endian BOM
+
+		try (Reader reader = SourceSnippetReader.newReader(new ByteArrayInputStream(source), StandardCharsets.UTF_8)) {
+			assertEquals("second", SourceSnippetReader.read(reader, 1, 5));
+		}
+	}
+
+	private static String readAllLinesAndFilter(Path path, int firstLineNumber, int lastLineNumber) throws IOException {
+		final AtomicInteger index = new AtomicInteger();
+		final List<String> lines = Files.readAllLines(path);
+
+		return String.join("\n", lines.stream().filter(s -> {
+			final int currentLineNumber = index.getAndIncrement();
+			return currentLineNumber >= firstLineNumber && currentLineNumber < lastLineNumber;
+		}).toArray(String[]::new));
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.thymeleaf.context.LazyContextVariable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class StreamedTraceAnalysisTest {
+
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	private final AtomicInteger analysisCount = new AtomicInteger();
+
+	@Test
+	void writtenPartOfThePageIsFlushedBeforeTheTraceIsAnalyzed() throws Exception {
+		final StreamedTraceAnalysis streamedTraceAnalysis = new StreamedTraceAnalysis(response, () -> {
+			assertTrue(response.isCommitted(), "flushed before the analysis");
+			assertEquals("<h2>message</h2>", response.getContentAsString());
+			return analysis();
+		});
+		final LazyContextVariable<List<ErrorContext>> errorContexts = streamedTraceAnalysis.getErrorContexts();
+
+		response.getWriter().write("<h2>message</h2>");
+
+		assertFalse(response.isCommitted());
+		assertEquals(0, analysisCount.get(), "not analyzed before the template refers to it");
+
+		assertTrue(errorContexts.getValue().isEmpty());
+		assertEquals(1, analysisCount.get());
+	}
+
+	@Test
+	void traceIsAnalyzedOnceForBothVariables() {
+		final StreamedTraceAnalysis streamedTraceAnalysis = new StreamedTraceAnalysis(response, this::analysis);
+
+		assertEquals("styled", streamedTraceAnalysis.getStyledTrace().getValue());
+		assertTrue(streamedTraceAnalysis.getErrorContexts().getValue().isEmpty());
+		assertEquals("styled", streamedTraceAnalysis.getStyledTrace().toString(), "dumped as its value");
+
+		assertEquals(1, analysisCount.get());
+	}
+
+	private TraceAnalysis analysis() {
+		analysisCount.incrementAndGet();
+		return new TraceAnalysis(Collections.emptyList(), "styled");
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Created on October, 2026
+ */
+class TraceAnalysisCacheTest {
+
+	private static final String FRAMES = "\n\tat com.kodgemisi.demo.ProductService.find(ProductService.java:12)\n"
+			+ "\tat org.springframework.web.servlet.FrameworkServlet.service(FrameworkServlet.java:882)";
+
+	@TempDir
+	Path tempDir;
+
+	private final TraceTokenizer traceTokenizer = new TraceTokenizer("com.kodgemisi");
+
+	private final TraceAnalysisCache traceAnalysisCache = new TraceAnalysisCache(2);
+
+	@Test
+	void keyIsMadeOfApplicationFramesOnly() {
+		final String key = keyOf("java.lang.IllegalStateException: Product 1 is not found" + FRAMES);
+
+		assertEquals(key, keyOf("java.lang.IllegalStateException: Product 2 is not found" + FRAMES));
+		assertNotEquals(key, keyOf("java.lang.IllegalStateException: Product 1 is not found" + FRAMES.replace(":12)", ":13)")));
+	}
+
+	@Test
+	void errorContextsAreCachedUntilTheirSourceIsModified() throws IOException {
+		final Path source = Files.createFile(tempDir.resolve("ProductService.java"));
+		final List<ErrorContext> errorContexts = errorContexts(source);
+		traceAnalysisCache.put("key", "trace", new TraceAnalysis(errorContexts, "styled"));
+
+		assertEquals(errorContexts, traceAnalysisCache.getErrorContexts("key"));
+		assertEquals(1, traceAnalysisCache.getHitCount());
+
+		Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+
+		assertNull(traceAnalysisCache.getErrorContexts("key"));
+		assertEquals(1, traceAnalysisCache.getMissCount());
+		assertEquals(0.5, traceAnalysisCache.getHitRatio());
+	}
+
+	@Test
+	void errorContextsWithoutSourcesAreNotCached() {
+		final List<ErrorContext> errorContexts = errorContexts(null);
+		traceAnalysisCache.put("key", "trace", new TraceAnalysis(errorContexts, "styled"));
+
+		assertNull(traceAnalysisCache.getErrorContexts("key"));
+		assertEquals(0, traceAnalysisCache.getEntryCount());
+	}
+
+	@Test
+	void errorContextsWhoseSnippetsAreNotPrefetchedAreCachedWithoutTheirSources() throws IOException {
+		final Path source = Files.createFile(tempDir.resolve("ProductService.java"));
+		final List<ErrorContext> errorContexts = errorContexts(source);
+		errorContexts.add(ErrorContext.fromStackTraceElement(new StackTraceElement("com.kodgemisi.demo.ProductController", "get", "ProductController.java", 7)));
+		traceAnalysisCache.put("key", "trace", new TraceAnalysis(errorContexts, "styled"));
+
+		assertEquals(errorContexts, traceAnalysisCache.getErrorContexts("key"));
+
+		Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+
+		assertNull(traceAnalysisCache.getErrorContexts("key"));
+	}
+
+	@Test
+	void styledTraceIsOnlyReusedForTheSameTrace() throws IOException {
+		final Path source = Files.createFile(tempDir.resolve("ProductService.java"));
+		traceAnalysisCache.put("key", "first trace", new TraceAnalysis(errorContexts(source), "first styled"));
+		final List<ErrorContext> cached = traceAnalysisCache.getErrorContexts("key");
+
+		assertEquals("first styled", traceAnalysisCache.getStyledTrace("key", "first trace"));
+		assertNull(traceAnalysisCache.getStyledTrace("key", "second trace"));
+
+		traceAnalysisCache.put("key", "second trace", new TraceAnalysis(cached, "second styled"));
+
+		assertEquals("second styled", traceAnalysisCache.getStyledTrace("key", "second trace"));
+	}
+
+	@Test
+	void leastRecentlyUsedEntryIsEvicted() {
+		traceAnalysisCache.put("first", "trace", new TraceAnalysis(Collections.emptyList(), "styled"));
+		traceAnalysisCache.put("second", "trace", new TraceAnalysis(Collections.emptyList(), "styled"));
+		traceAnalysisCache.getErrorContexts("first");
+
+		traceAnalysisCache.put("third", "trace", new TraceAnalysis(Collections.emptyList(), "styled"));
+
+		assertEquals(2, traceAnalysisCache.getEntryCount());
+		assertEquals(1, traceAnalysisCache.getEvictionCount());
+		assertNull(traceAnalysisCache.getErrorContexts("second"));
+	}
+
+	private String keyOf(String trace) {
+		return TraceAnalysisCache.keyOf(traceTokenizer.tokenize(trace));
+	}
+
+	private static List<ErrorContext> errorContexts(Path source) {
+		final ErrorContext errorContext = ErrorContext.fromStackTraceElement(
+				new StackTraceElement("com.kodgemisi.demo.ProductService", "find", "ProductService.java", 12));
+		errorContext.loadSourceCode(Utils.sourcePathResolver(source), Utils.sourceFileCache());
+
+		final List<ErrorContext> errorContexts = new ArrayList<>();
+		errorContexts.add(errorContext);
+		return errorContexts;
+	}
+}
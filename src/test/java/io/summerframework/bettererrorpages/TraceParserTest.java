@@ -1,13 +1,11 @@
 package io.summerframework.bettererrorpages;
 
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.params.ParameterizedTest;
-import org.junit.jupiter.params.provider.CsvFileSource;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,56 +20,84 @@ class TraceParserTest {
 	void getErrorContexts() {
 
 		final String sampleTrace = Utils.readSampleFile("sampleTrace.txt");
-		final TraceParser traceParser = new TraceParser("com.kodgemisi");
+		final TraceParser traceParser = new TraceParser("com.kodgemisi", Utils.sourceCodeLoader());
 
 		final List<ErrorContext> errorContexts = traceParser.getErrorContexts(sampleTrace);
 
 		assertEquals(errorContexts.size(), 4);
 	}
 
-	@ParameterizedTest
-	@CsvFileSource(resources = "/traceLinesSuccess.csv", numLinesToSkip = 1)
-	void parseTraceForClassShouldSucceed(String targetPackage, String wholeLine, String fullyQualifiedName, String packageName, String className,
-			String fileName, String lineNumber) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+	@Test
+	void templateErrorContextComesLast() {
 
-		final Method method = Utils.getParseTraceForClassMethod();
-		final TraceParser traceParser = new TraceParser(targetPackage);
-		final Matcher matcher = (Matcher) method.invoke(traceParser, wholeLine);
+		final String trace = Utils.readSampleFile("sample_traces/traceWithHtml.txt");
+		final TraceParser traceParser = new TraceParser("com.kodgemisi", Utils.sourceCodeLoader());
 
-		assertTrue(matcher.find(), "regex should match");
-		assertTrue(matcher.groupCount() > 0);
+		final List<ErrorContext> errorContexts = traceParser.getErrorContexts(trace);
 
-		assertEquals(fullyQualifiedName, matcher.group(1), "fully qualified class name");
-		assertEquals(packageName, matcher.group(2), "package name");
-		assertEquals(className, matcher.group(3), "class name");
-		assertEquals(fileName, matcher.group(4), "file name");
-		assertEquals(lineNumber, matcher.group(5), "line number");
+		assertEquals(3, errorContexts.size());
+		assertEquals("templates/index-with-customization.html", errorContexts.get(2).getFileName());
+		assertEquals(24, errorContexts.get(2).getErrorLineNumber());
 	}
 
-	@ParameterizedTest
-	@CsvFileSource(resources = "/traceLinesFail.csv", numLinesToSkip = 1)
-	void parseTraceForClassShouldFailToParse(String targetPackage, String wholeLine) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+	@Test
+	void errorContextsOfThrowableAreSameWithTheOnesOfItsTrace() {
+
+		final RuntimeException cause = new RuntimeException("Exception in (template: \"products/list\" - line 3, col 5)");
+		cause.setStackTrace(new StackTraceElement[] { new StackTraceElement("com.kodgemisi.demo.ProductService$Inner", "list", "ProductService.java", 12),
+				new StackTraceElement("com.kodgemisi.demo.ProductService", "native", null, -2),
+				new StackTraceElement("com.kodgemisi.demo.ProductController", "list", "ProductController.java", 40),
+				new StackTraceElement("org.springframework.web.servlet.FrameworkServlet", "service", "FrameworkServlet.java", 882) });
+
+		final IllegalStateException suppressed = new IllegalStateException("suppressed");
+		suppressed.setStackTrace(new StackTraceElement[] { new StackTraceElement("com.kodgemisi.demo.Closer", "close", "Closer.java", 7) });
+
+		final IllegalStateException error = new IllegalStateException("outer", cause);
+		error.addSuppressed(suppressed);
+		error.setStackTrace(new StackTraceElement[] { new StackTraceElement("com.kodgemisi.demo.ProductController", "list", "ProductController.java", 42),
+				new StackTraceElement("com.kodgemisi.demo.ProductController", "list", "ProductController.java", 40),
+				new StackTraceElement("org.springframework.web.servlet.FrameworkServlet", "service", "FrameworkServlet.java", 882) });
+
+		final StringWriter trace = new StringWriter();
+		error.printStackTrace(new PrintWriter(trace));
+
+		final TraceParser traceParser = new TraceParser("com.kodgemisi", Utils.sourceCodeLoader());
+		final List<ErrorContext> expected = traceParser.getErrorContexts(trace.toString());
+		final List<ErrorContext> actual = traceParser.getErrorContexts(error);
+
+		assertEquals(5, expected.size());
+		assertEquals(expected.stream().map(ErrorContext::getId).collect(Collectors.toList()), actual.stream().map(ErrorContext::getId).collect(Collectors.toList()));
+		assertEquals(expected.stream().map(ErrorContext::getTraceLine).collect(Collectors.toList()),
+					 actual.stream().map(ErrorContext::getTraceLine).collect(Collectors.toList()));
+		assertEquals("ProductService.java", actual.get(3).getFileName());
+	}
 
-		final Method method = Utils.getParseTraceForClassMethod();
-		final TraceParser traceParser = new TraceParser(targetPackage);
-		final Matcher matcher = (Matcher) method.invoke(traceParser,wholeLine);
+	@Test
+	void repeatsOfAnErrorHaveTheSameFingerprint() {
 
-		assertFalse(matcher.find(), "regex should NOT match");
+		final TraceParser traceParser = new TraceParser("com.kodgemisi", Utils.sourceCodeLoader());
+		final String frames = "\n\tat com.kodgemisi.demo.ProductService.find(ProductService.java:12)\n"
+				+ "\tat com.kodgemisi.demo.ProductController.show(ProductController.java:40)\n"
+				+ "\tat org.springframework.web.servlet.FrameworkServlet.service(FrameworkServlet.java:882)";
+
+		final String fingerprint = traceParser.getFingerprint("java.lang.IllegalStateException: Product 1 is not found" + frames);
+
+		assertEquals(fingerprint, traceParser.getFingerprint("java.lang.IllegalStateException: Product 2 is not found" + frames));
+		assertNotEquals(fingerprint, traceParser.getFingerprint("java.lang.IllegalArgumentException: Product 2 is not found" + frames));
+		assertNotEquals(fingerprint, traceParser.getFingerprint("java.lang.IllegalStateException: Product 1 is not found" + frames.replace(":40)", ":41)")));
 	}
 
-	@ParameterizedTest
-	@CsvFileSource(resources = "/traceLinesForTemplateSuccess.csv", numLinesToSkip = 1, delimiter = ';')
-	void parseTraceForTemplateShouldSucceed(String wholeLine, String templateName, String lineNumber) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+	@Test
+	void errorsWithoutApplicationFramesAreFingerprintedByTheirFirstFrames() {
 
-		final Method method = Utils.getparseTraceForTemplateMethod();
-		final TraceParser traceParser = new TraceParser("doesnt.matter");
-		final Matcher matcher = (Matcher) method.invoke(traceParser, wholeLine);
+		final TraceParser traceParser = new TraceParser("com.kodgemisi", Utils.sourceCodeLoader());
+		final String frames = "\n\tat org.springframework.web.servlet.DispatcherServlet.doDispatch(DispatcherServlet.java:1040)\n"
+				+ "\tat org.springframework.web.servlet.FrameworkServlet.service(FrameworkServlet.java:882)";
 
-		assertTrue(matcher.find(), "regex should match");
-		assertTrue(matcher.groupCount() > 0);
+		final String fingerprint = traceParser.getFingerprint("org.springframework.web.HttpMediaTypeNotSupportedException: text/plain" + frames);
 
-		assertEquals(templateName, matcher.group(1), "template name");
-		assertEquals(lineNumber, matcher.group(2), "line number");
+		assertEquals(fingerprint, traceParser.getFingerprint("org.springframework.web.HttpMediaTypeNotSupportedException: text/xml" + frames));
+		assertNotEquals(fingerprint, traceParser.getFingerprint("org.springframework.web.HttpMediaTypeNotSupportedException: text/xml" + frames.replace("1040", "1041")));
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class TraceTokenizerTest {
+
+	@ParameterizedTest
+	@CsvFileSource(resources = "/traceLinesSuccess.csv", numLinesToSkip = 1)
+	void applicationFrameShouldBeRecognized(String targetPackage, String wholeLine, String fullyQualifiedName, String packageName, String className,
+			String fileName, String lineNumber) {
+
+		final TraceFrame frame = new TraceTokenizer(targetPackage).tokenizeLine(wholeLine);
+
+		assertTrue(frame.isApplicationFrame(), "line should be recognized as an application frame");
+		assertEquals(fullyQualifiedName, frame.getFullyQualifiedClassName(), "fully qualified class name");
+		assertEquals(packageName, frame.getPackageName(), "package name");
+		assertEquals(className, frame.getClassName(), "class name");
+		assertEquals(fileName, frame.getFileName(), "file name");
+		assertEquals(lineNumber, frame.getLineNumber(), "line number");
+	}
+
+	@ParameterizedTest
+	@CsvFileSource(resources = "/traceLinesFail.csv", numLinesToSkip = 1)
+	void otherLinesShouldNotBeRecognizedAsApplicationFrames(String targetPackage, String wholeLine) {
+
+		final TraceFrame frame = new TraceTokenizer(targetPackage).tokenizeLine(wholeLine);
+
+		assertFalse(frame.isApplicationFrame(), "line should NOT be recognized as an application frame");
+	}
+
+	@ParameterizedTest
+	@CsvFileSource(resources = "/traceLinesForTemplateSuccess.csv", numLinesToSkip = 1, delimiter = ';')
+	void templateMarkerShouldBeRecognized(String wholeLine, String templateName, String lineNumber) {
+
+		final TraceFrame frame = new TraceTokenizer("doesnt.matter").tokenizeLine(wholeLine);
+
+		assertTrue(frame.isTemplateMarker(), "line should be recognized as a template marker");
+		assertEquals(templateName, frame.getFileName(), "template name");
+		assertEquals(lineNumber, frame.getLineNumber(), "line number");
+	}
+
+	@Test
+	void linesAreTyped() {
+		final String trace = "java.lang.IllegalStateException: outer\n" + "\tat com.acme.Foo.bar(Foo.java:1)\n" + "Caused by: java.lang.RuntimeException\n"
+				+ "\t... 55 more\n" + "\t... and this is a message";
+
+		final List<TraceFrame> frames = new TraceTokenizer("com.acme").tokenize(trace);
+
+		//@formatter:off
+		assertEquals(5, frames.size());
+		assertEquals(TraceFrame.Type.MESSAGE, frames.get(0).getType());
+		assertEquals(TraceFrame.Type.STACK_FRAME, frames.get(1).getType());
+		assertEquals(TraceFrame.Type.CAUSED_BY, frames.get(2).getType());
+		assertEquals(TraceFrame.Type.ELIDED_FRAMES, frames.get(3).getType());
+		assertEquals(TraceFrame.Type.MESSAGE, frames.get(4).getType());
+		assertEquals("\tat com.acme.Foo.bar(Foo.java:1)", frames.get(1).getLine());
+		assertNull(frames.get(2).getMatchedContent());
+		//@formatter:on
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "sample_traces/sampleTrace.txt", "sample_traces/traceWithHtml.txt" })
+	void resultsAreSameWithLegacyPatterns(String sampleTrace) {
+		final String trace = Utils.readSampleFile(sampleTrace);
+
+		for (String packageName : new String[] { "com.kodgemisi", "com.kodgemisi.summer", "org.springframework", "" }) {
+			final List<String> expected = new ArrayList<>();
+			final Matcher classMatcher = Utils.legacyClassNamePattern(packageName).matcher(trace);
+			while (classMatcher.find()) {
+				expected.add(String.join("|", classMatcher.group(0), classMatcher.group(1), classMatcher.group(2), classMatcher.group(3),
+										 classMatcher.group(4), classMatcher.group(5)));
+			}
+
+			//@formatter:off
+			final List<String> actual = new TraceTokenizer(packageName).tokenize(trace).stream()
+					.filter(TraceFrame::isApplicationFrame)
+					.map(f -> String.join("|", f.getMatchedContent(), f.getFullyQualifiedClassName(), f.getPackageName(), f.getClassName(),
+										  f.getFileName(), f.getLineNumber()))
+					.collect(Collectors.toList());
+			//@formatter:on
+
+			assertEquals(expected, actual, "application frames of " + packageName);
+		}
+
+		final List<String> expected = new ArrayList<>();
+		final Matcher templateMatcher = Utils.legacyTemplateNamePattern().matcher(trace);
+		while (templateMatcher.find()) {
+			expected.add(String.join("|", templateMatcher.group(0), templateMatcher.group(1), templateMatcher.group(2)));
+		}
+
+		//@formatter:off
+		final List<String> actual = new TraceTokenizer("com.kodgemisi").tokenize(trace).stream()
+				.filter(TraceFrame::isTemplateMarker)
+				.map(f -> String.join("|", f.getMatchedContent(), f.getFileName(), f.getLineNumber()))
+				.collect(Collectors.toList());
+		//@formatter:on
+
+		assertEquals(expected, actual, "template markers");
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ *  Copyright © 2018 Kod Gemisi Ltd.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is “Incompatible With Secondary Licenses”, as defined by
+ * the Mozilla Public License, v. 2.0.
+ *
+ */
+
+package io.summerframework.bettererrorpages;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created on October, 2026
+ */
+class UlidErrorIdGeneratorTest {
+
+	@Test
+	void idsAreInCrockfordsBase32() {
+		final String id = new UlidErrorIdGenerator().generate();
+
+		assertEquals(UlidErrorIdGenerator.LENGTH, id.length());
+		assertTrue(id.matches("[0-7][0-9A-HJKMNP-TV-Z]{25}"), id);
+	}
+
+	@Test
+	void idsStartWithTheirTime() {
+		final String id = new UlidErrorIdGenerator(() -> 0).generate();
+
+		// Time of 0 and the counter of the first id, which is 1
+		assertTrue(id.startsWith("0000000000000"), id);
+		assertEquals('G', id.charAt(13));
+	}
+
+	@Test
+	void idsAreOrderedWithinTheSameMillisecondAndWhenTheClockGoesBack() {
+		final AtomicLong now = new AtomicLong(1_000_000);
+		final UlidErrorIdGenerator generator = new UlidErrorIdGenerator(now::get);
+
+		String previous = generator.generate();
+		for (int i = 0; i < 100_000; i++) {
+			if (i == 50_000) {
+				now.set(1);
+			}
+
+			final String id = generator.generate();
+			assertTrue(id.compareTo(previous) > 0, previous + " " + id);
+			previous = id;
+		}
+	}
+
+	@Test
+	void idsOfConcurrentThreadsAreUnique() throws InterruptedException {
+		final UlidErrorIdGenerator generator = new UlidErrorIdGenerator();
+		final Set<String> ids = ConcurrentHashMap.newKeySet();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		for (int thread = 0; thread < 4; thread++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 25_000; i++) {
+					ids.add(generator.generate());
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		assertEquals(100_000, ids.size());
+	}
+}
@@ -5,10 +5,12 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Created on April, 2019
@@ -52,17 +54,56 @@ class Utils {
 		}
 	}
 
-	static Method getParseTraceForClassMethod() throws NoSuchMethodException {
-		return getTracerMethod("parseTraceForClass");
+	/**
+	 * Loader with the default settings, its threads are daemons so it is not closed
+	 */
+	static SourceCodeLoader sourceCodeLoader() {
+		return new SourceCodeLoader(SourceCodeLoader.createExecutor(), new SourcePathResolver(), sourceFileCache(), SourceCodeLoader.DEFAULT_TIMEOUT,
+									SourceCodeLoader.DEFAULT_PREFETCH_COUNT);
 	}
 
-	static Method getparseTraceForTemplateMethod() throws NoSuchMethodException {
-		return getTracerMethod("parseTraceForTemplate");
+	static SourceFileCache sourceFileCache() {
+		return new SourceFileCache(SourceFileCache.DEFAULT_MAX_BYTES);
 	}
 
-	private static Method getTracerMethod(String methodName) throws NoSuchMethodException {
-		final Method method = TraceParser.class.getDeclaredMethod(methodName, String.class);
-		method.setAccessible(true);
-		return method;
+	/**
+	 * @return attributes of a rest endpoint error, a new map each time as archiving adds its own attributes to the map
+	 */
+	static Map<String, Object> errorAttributes(String trace) {
+		final Map<String, Object> errorAttributes = new HashMap<>();
+		errorAttributes.put("status", 500);
+		errorAttributes.put("message", "Demo error here.");
+		errorAttributes.put("trace", trace);
+		return errorAttributes;
+	}
+
+	/**
+	 * @param source which every class is resolved to, null for none of them to be resolved
+	 */
+	static SourcePathResolver sourcePathResolver(Path source) {
+		return new SourcePathResolver() {
+
+			@Override
+			Path resolveClass(String fullyQualifiedClassName, String fileName) throws IOException {
+				if (source == null) {
+					throw new IOException(fullyQualifiedClassName + " cannot be resolved to a source file.");
+				}
+				return source;
+			}
+		};
+	}
+
+	/**
+	 * The pattern {@link TraceParser} used to match application frames before {@link TraceTokenizer}, kept to verify that the results are the same.
+	 */
+	static Pattern legacyClassNamePattern(String packageName) {
+		return Pattern.compile("at ((" + packageName + "[a-z0-9\\.]*)\\.([A-Z]\\w*)).*\\((.+):(\\d+)\\)");
+	}
+
+	/**
+	 * The pattern {@link TraceParser} used to match template markers before {@link TraceTokenizer}, kept to verify that the results are the same.
+	 */
+	static Pattern legacyTemplateNamePattern() {
+		return Pattern.compile("\\(template: \"(?:.+\\[){0,1}(.+?)]*\" - line (\\d+), col .+\\)");
 	}
 }